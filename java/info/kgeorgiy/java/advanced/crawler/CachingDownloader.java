@@ -1,23 +1,34 @@
 package info.kgeorgiy.java.advanced.crawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URLEncoder;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Downloads document from the Web and stores them in storage directory.
+ * Stored documents are reused while they are fresh and revalidated with
+ * <tt>If-None-Match</tt>/<tt>If-Modified-Since</tt> once they are stale.
  *
  * @author Georgiy Korneev (kgeorgiy@kgeorgiy.info)
  */
-public class CachingDownloader implements Downloader {
-    private final File directory;
+public class CachingDownloader implements Downloader, Closeable {
+    private static final int CHARSET_PRESCAN = 8192;
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta\\s[^>]*?charset\\s*=\\s*[\"']?\\s*([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final PageCache cache;
+    private final long defaultTtl;
 
     /**
      * Creates a new downloader storing documents in temporary directory.
@@ -36,18 +47,46 @@ public class CachingDownloader implements Downloader {
      * @throws IOException if an error occurred.
      */
     public CachingDownloader(final File directory) throws IOException {
-        this.directory = directory;
+        this(directory, true);
+    }
+
+    /**
+     * Creates a new downloader optionally storing documents in specified directory.
+     *
+     * @param directory storage directory.
+     * @param store whether downloaded documents should be written to the storage directory.
+     *
+     * @throws IOException if an error occurred.
+     */
+    public CachingDownloader(final File directory, final boolean store) throws IOException {
+        this(directory, store, 0);
+    }
+
+    /**
+     * Creates a new downloader optionally storing documents in specified directory.
+     *
+     * @param directory storage directory.
+     * @param store whether downloaded documents should be written to and read from the storage directory.
+     * @param defaultTtl time in milliseconds a stored document is considered fresh
+     *                   if the server did not specify <tt>Cache-Control</tt> or <tt>Expires</tt>.
+     *
+     * @throws IOException if an error occurred.
+     */
+    public CachingDownloader(final File directory, final boolean store, final long defaultTtl) throws IOException {
+        this.defaultTtl = defaultTtl;
         if (!directory.exists()) {
             Files.createDirectories(directory.toPath());
         }
         if (!directory.isDirectory()) {
             throw new IOException(directory + " is not a directory");
         }
+        this.cache = store ? new PageCache(directory.toPath()) : null;
     }
 
     /**
-     * Downloads document and stores it to the storage directory. An error during
-     * download may result in incomplete files in storage directory.
+     * Downloads document and stores it to the storage directory. Links are extracted
+     * while the document is being downloaded, so the stored file is never parsed again.
+     * Fresh stored documents are served without contacting the server.
      *
      * @param url URL of the document to download.
      *
@@ -56,35 +95,219 @@ public class CachingDownloader implements Downloader {
      * @throws IOException if an error occurred.
      */
     public Document download(final String url) throws IOException {
-        System.out.println("Downloading " + url);
         final URI uri = URLUtils.getURI(url);
-        final File file = new File(directory, URLEncoder.encode(uri.toString(), "UTF-8"));
+        final long now = System.currentTimeMillis();
+        final PageCache.Entry cached = cache != null ? cache.get(uri.toString()) : null;
+        if (cached != null && cached.isFresh(now)) {
+            return fromCache(url, uri, cached);
+        }
+
+        System.out.println("Downloading " + url);
+        final URLConnection connection = uri.toURL().openConnection();
+        if (cached != null) {
+            if (cached.etag != null) {
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+        }
+        if (cached != null && connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            // Release the connection back to the keep-alive pool
+            connection.getInputStream().close();
+            final PageCache.Entry entry = cached.revalidated(
+                    connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"),
+                    getExpires(connection, now)
+            );
+            cache.put(entry);
+            return fromCache(url, uri, entry);
+        }
+
+        final List<String> links = new ArrayList<>();
+        final LinkTokenizer tokenizer = createTokenizer(uri, links);
+        final boolean store = cache != null && isStorable(connection);
         try (
-                final InputStream is = new BufferedInputStream(uri.toURL().openStream());
-                final OutputStream os = new BufferedOutputStream(new FileOutputStream(file))
+                final InputStream raw = connection.getInputStream();
+                final PageCache.PendingBody body = store ? cache.create() : null;
+                final BufferedInputStream is = new BufferedInputStream(
+                        body == null ? raw : new TeeInputStream(raw, body.getStream()), CHARSET_PRESCAN);
+                final Reader reader = new InputStreamReader(is, getCharset(is, connection.getContentType()))
         ) {
-            final byte[] buffer = new byte[1024];
-            int read;
-            while ((read = is.read(buffer)) >= 0) {
-                os.write(buffer, 0, read);
+            tokenize(reader, tokenizer);
+            if (body != null) {
+                cache.put(new PageCache.Entry(
+                        uri.toString(),
+                        body.commit(),
+                        connection.getContentType(),
+                        connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"),
+                        getExpires(connection, now)
+                ));
             }
         }
         System.out.println("Downloaded " + url);
-        return () -> {
-            final Elements elements = Jsoup.parse(file, null, url).select("a[href]");
-            final List<String> result = new ArrayList<>();
-            for (final Element element : elements) {
-                try {
-                    final URI href = uri.resolve(element.attr("href"));
-                    if (("http".equalsIgnoreCase(href.getScheme()) || "https".equals(href.getScheme())) && href.getHost() != null) {
-                        result.add(URLUtils.removeFragment(href.normalize().toString()));
-                    }
-                } catch (final IllegalArgumentException e) {
-                    // Invalid URI, ignore
-                }
+        return toDocument(url, links);
+    }
+
+    /**
+     * Closes the storage index. Stored documents remain available to downloaders
+     * subsequently created for the same directory.
+     *
+     * @throws IOException if an error occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    private Document fromCache(final String url, final URI uri, final PageCache.Entry entry) throws IOException {
+        final List<String> links = new ArrayList<>();
+        try (
+                final BufferedInputStream is = new BufferedInputStream(
+                        Files.newInputStream(cache.getBody(entry)), CHARSET_PRESCAN);
+                final Reader reader = new InputStreamReader(is, getCharset(is, entry.contentType))
+        ) {
+            tokenize(reader, createTokenizer(uri, links));
+        }
+        return toDocument(url, links);
+    }
+
+    private static LinkTokenizer createTokenizer(final URI uri, final List<String> links) {
+        return new LinkTokenizer(href -> {
+            final String link = resolve(uri, href);
+            if (link != null) {
+                links.add(link);
             }
+        });
+    }
+
+    private static void tokenize(final Reader reader, final LinkTokenizer tokenizer) throws IOException {
+        final char[] buffer = new char[1024];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            tokenizer.feed(buffer, 0, read);
+        }
+    }
+
+    private static Document toDocument(final String url, final List<String> links) {
+        final List<String> result = Collections.unmodifiableList(links);
+        return () -> {
             System.out.println("Links for " + url + ": " + result);
             return result;
         };
     }
+
+    private static boolean isStorable(final URLConnection connection) {
+        final String cacheControl = connection.getHeaderField("Cache-Control");
+        return cacheControl == null || !cacheControl.toLowerCase().contains("no-store");
+    }
+
+    private long getExpires(final URLConnection connection, final long now) {
+        final String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            for (final String directive : cacheControl.split(",")) {
+                final String trimmed = directive.trim().toLowerCase();
+                if (trimmed.equals("no-cache")) {
+                    return now;
+                }
+                if (trimmed.startsWith("max-age=")) {
+                    try {
+                        return now + Long.parseLong(trimmed.substring("max-age=".length())) * 1000;
+                    } catch (final NumberFormatException e) {
+                        // Invalid max-age, try other sources
+                    }
+                }
+            }
+        }
+        final long expires = connection.getHeaderFieldDate("Expires", 0);
+        return expires > 0 ? expires : now + defaultTtl;
+    }
+
+    private static String resolve(final URI base, final String href) {
+        try {
+            final URI uri = base.resolve(href);
+            if (("http".equalsIgnoreCase(uri.getScheme()) || "https".equals(uri.getScheme())) && uri.getHost() != null) {
+                return URLUtils.removeFragment(uri.normalize().toString());
+            }
+        } catch (final IllegalArgumentException e) {
+            // Invalid URI, ignore
+        }
+        return null;
+    }
+
+    /**
+     * Determines document charset. As with Jsoup, a <tt>meta</tt> declaration takes precedence;
+     * it is looked for in the first {@value #CHARSET_PRESCAN} bytes only. Then the <tt>Content-Type</tt>
+     * header is used, then UTF-8. The stream is reset to its start.
+     */
+    private static Charset getCharset(final BufferedInputStream is, final String contentType) throws IOException {
+        is.mark(CHARSET_PRESCAN);
+        final byte[] prefix = new byte[CHARSET_PRESCAN];
+        int length = 0;
+        int read;
+        while (length < prefix.length && (read = is.read(prefix, length, prefix.length - length)) >= 0) {
+            length += read;
+        }
+        is.reset();
+
+        final Matcher matcher = META_CHARSET.matcher(new String(prefix, 0, length, StandardCharsets.ISO_8859_1));
+        if (matcher.find()) {
+            final Charset charset = forName(matcher.group(1));
+            if (charset != null) {
+                return charset;
+            }
+        }
+        if (contentType != null) {
+            for (final String parameter : contentType.split(";")) {
+                final String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, "charset=".length())) {
+                    final Charset charset = forName(trimmed.substring("charset=".length()).replace("\"", "").trim());
+                    if (charset != null) {
+                        return charset;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Charset forName(final String name) {
+        try {
+            return Charset.forName(name);
+        } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+            // Unknown charset, use default
+            return null;
+        }
+    }
+
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream os;
+
+        TeeInputStream(final InputStream is, final OutputStream os) {
+            super(is);
+            this.os = os;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                os.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                os.write(b, off, read);
+            }
+            return read;
+        }
+    }
 }
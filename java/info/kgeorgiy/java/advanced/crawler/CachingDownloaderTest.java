@@ -0,0 +1,202 @@
+package info.kgeorgiy.java.advanced.crawler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks {@link CachingDownloader} cache behaviour against a stub HTTP server.
+ */
+public class CachingDownloaderTest {
+    private static final String LAST_MODIFIED = "Mon, 05 Oct 2026 10:00:00 GMT";
+
+    private static final Map<String, HttpHandler> handlers = new ConcurrentHashMap<>();
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static HttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            final HttpHandler handler = handlers.get(exchange.getRequestURI().getPath());
+            if (handler == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            } else {
+                handler.handle(exchange);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Before
+    public void reset() {
+        handlers.clear();
+        requests.set(0);
+    }
+
+    @Test
+    public void test01_notModified() throws IOException {
+        final Map<String, String> validators = new ConcurrentHashMap<>();
+        handlers.put("/revalidated", exchange -> {
+            final String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (etag == null) {
+                send(exchange, 200, page("/v1"), "Cache-Control", "max-age=0", "ETag", "\"v1\"", "Last-Modified", LAST_MODIFIED);
+                return;
+            }
+            validators.put("If-None-Match", etag);
+            validators.put("If-Modified-Since", exchange.getRequestHeaders().getFirst("If-Modified-Since"));
+            send(exchange, 304, null, "Cache-Control", "max-age=0", "ETag", "\"v1\"");
+        });
+
+        try (CachingDownloader downloader = new CachingDownloader(createDirectory())) {
+            final String url = url("/revalidated");
+            Assert.assertEquals(Collections.singletonList(url("/v1")), downloader.download(url).extractLinks());
+            Assert.assertEquals(Collections.singletonList(url("/v1")), downloader.download(url).extractLinks());
+            Assert.assertEquals(Collections.singletonList(url("/v1")), downloader.download(url).extractLinks());
+        }
+        Assert.assertEquals("Requests", 3, requests.get());
+        Assert.assertEquals("\"v1\"", validators.get("If-None-Match"));
+        Assert.assertEquals(LAST_MODIFIED, validators.get("If-Modified-Since"));
+    }
+
+    @Test
+    public void test02_replaced() throws IOException {
+        final AtomicInteger version = new AtomicInteger();
+        handlers.put("/replaced", exchange -> {
+            final String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (version.get() == 2 && "\"v2\"".equals(etag)) {
+                send(exchange, 304, null, "Cache-Control", "max-age=0");
+            } else {
+                final int current = version.incrementAndGet();
+                send(exchange, 200, page("/v" + current), "Cache-Control", "max-age=0", "ETag", "\"v" + current + "\"");
+            }
+        });
+
+        final File directory = createDirectory();
+        try (CachingDownloader downloader = new CachingDownloader(directory)) {
+            final String url = url("/replaced");
+            Assert.assertEquals(Collections.singletonList(url("/v1")), downloader.download(url).extractLinks());
+            Assert.assertEquals(Collections.singletonList(url("/v2")), downloader.download(url).extractLinks());
+            Assert.assertEquals(Collections.singletonList(url("/v2")), downloader.download(url).extractLinks());
+        }
+        Assert.assertEquals("Requests", 3, requests.get());
+        Assert.assertEquals("Versions", 2, version.get());
+    }
+
+    @Test
+    public void test03_sharedBody() throws IOException, NoSuchAlgorithmException {
+        final byte[] body = page("/shared");
+        handlers.put("/first", exchange -> send(exchange, 200, body, "Cache-Control", "max-age=3600"));
+        handlers.put("/second", exchange -> send(exchange, 200, body, "Cache-Control", "max-age=3600"));
+        final List<String> expected = Collections.singletonList(url("/shared"));
+
+        final File directory = createDirectory();
+        try (CachingDownloader downloader = new CachingDownloader(directory)) {
+            Assert.assertEquals(expected, downloader.download(url("/first")).extractLinks());
+            Assert.assertEquals(expected, downloader.download(url("/second")).extractLinks());
+        }
+        final String hash = sha256(body);
+        final List<Path> expectedObjects = Collections.singletonList(
+                directory.toPath().resolve("objects").resolve(hash.substring(0, 2)).resolve(hash)
+        );
+        Assert.assertEquals(expectedObjects, objects(directory));
+
+        handlers.clear();
+        for (int i = 0; i < 2; i++) {
+            try (CachingDownloader downloader = new CachingDownloader(directory)) {
+                Assert.assertEquals(expected, downloader.download(url("/first")).extractLinks());
+                Assert.assertEquals(expected, downloader.download(url("/second")).extractLinks());
+            }
+        }
+        Assert.assertEquals("Requests", 2, requests.get());
+        Assert.assertEquals(expectedObjects, objects(directory));
+    }
+
+    @Test
+    public void test04_longUrl() throws IOException {
+        final String url = "http://example.com/?q=" + String.join("", Collections.nCopies(70_000, "\u044f"));
+        final Path directory = createDirectory().toPath();
+        final String hash;
+        try (PageCache cache = new PageCache(directory); PageCache.PendingBody body = cache.create()) {
+            body.getStream().write(page("/long"));
+            hash = body.commit();
+            cache.put(new PageCache.Entry(url, hash, "text/html", "\"e\"", LAST_MODIFIED, Long.MAX_VALUE));
+        }
+        try (PageCache cache = new PageCache(directory)) {
+            Assert.assertEquals(hash, cache.get(url).hash);
+            Assert.assertEquals("\"e\"", cache.get(url).etag);
+        }
+    }
+
+    private static void send(
+            final HttpExchange exchange,
+            final int code,
+            final byte[] body,
+            final String... headers) throws IOException {
+        for (int i = 0; i < headers.length; i += 2) {
+            exchange.getResponseHeaders().add(headers[i], headers[i + 1]);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(code, body == null ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (body != null) {
+                os.write(body);
+            }
+        }
+    }
+
+    private static byte[] page(final String link) {
+        return ("<html><body><a href=\"" + link + "\">link</a></body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String url(final String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static File createDirectory() throws IOException {
+        return Files.createTempDirectory(CachingDownloaderTest.class.getName()).toFile();
+    }
+
+    private static List<Path> objects(final File directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory.toPath().resolve("objects"))) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static String sha256(final byte[] body) throws NoSuchAlgorithmException {
+        final StringBuilder result = new StringBuilder();
+        for (final byte b : MessageDigest.getInstance("SHA-256").digest(body)) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+}
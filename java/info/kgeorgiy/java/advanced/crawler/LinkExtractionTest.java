@@ -0,0 +1,181 @@
+package info.kgeorgiy.java.advanced.crawler;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that streaming link extraction of {@link CachingDownloader} matches Jsoup
+ * for both downloaded and cached pages.
+ */
+public class LinkExtractionTest {
+    private static final String MARKUP = "<!DOCTYPE html><html><head>%s<title>x</title>"
+            + "<script>var s = '<a href=\"/script\">';</script><style>a{}</style></head><body>"
+            + "<A HREF='/upper'>u</A><a href=rel/unquoted>q</a><a class=x href=\"/q?a=1&amp;b=2#frag\">e</a>"
+            + "<!-- <a href=\"/comment\"> --><a\nhref = \"http://other.com/x\" >n</a><a href=\"mailto:x@y\">m</a>"
+            + "<a name=x>no</a><a href=\"/with space\">sp</a><a href=\"/&#x41;&#66;\">num</a><a href>empty</a>"
+            + "<div><a href=\"https://s.com\"/></div><p>1 < 2 <a href='/after-lt'>x</a></p>"
+            + "<a href=\"/\u043f\u0443\u0442\u044c\">\u0442\u0435\u043a\u0441\u0442</a>%s</body></html>";
+
+    private static final Map<String, Page> pages = new ConcurrentHashMap<>();
+    private static HttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final Page page = pages.get(exchange.getRequestURI().getPath());
+            exchange.getResponseHeaders().add("Content-Type", page.contentType);
+            exchange.sendResponseHeaders(200, page.body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(page.body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void test01_utf8() throws IOException {
+        test("/utf8.html", "text/html; charset=UTF-8", StandardCharsets.UTF_8, "", "");
+    }
+
+    @Test
+    public void test02_metaCharset() throws IOException {
+        test("/meta.html", "text/html", Charset.forName("windows-1251"), "<meta charset=\"windows-1251\">", "");
+    }
+
+    @Test
+    public void test03_httpEquiv() throws IOException {
+        test(
+                "/equiv.html", "text/html; charset=UTF-8", Charset.forName("KOI8-R"),
+                "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=koi8-r\">", ""
+        );
+    }
+
+    @Test
+    public void test04_large() throws IOException {
+        test(
+                "/large.html", "text/html", StandardCharsets.UTF_8, "",
+                String.join("", Collections.nCopies(5000, "<a href=\"/big/x\">b</a> filler text "))
+        );
+    }
+
+    @Test
+    public void test05_rawText() throws IOException {
+        test(
+                "/raw.html", "text/html", StandardCharsets.UTF_8,
+                "<title><a href=\"/in-title\">t</a></title>",
+                "<textarea><a href=\"/in-textarea\"></textarea><noframes><a href=\"/in-noframes\"></noframes>"
+                        + "<xmp><a href=\"/in-xmp\"></xmp><iframe><a href=\"/in-iframe\"></iframe>"
+                        + "<noembed><a href=\"/in-noembed\"></noembed><TITLE ><a href='/in-upper'></title >"
+                        + "<script>var s = '</scripts><a href=\"/in-script\">';</script/><a href=\"/after-script\">a</a>"
+                        + "<plaintext><a href=\"/in-plaintext\">"
+        );
+    }
+
+    @Test
+    public void test06_entities() throws IOException {
+        test(
+                "/entities.html", "text/html", StandardCharsets.UTF_8, "",
+                "<a href=\"/e?a=1&ampb=2\">1</a><a href=\"/e?a=1&amp;b=2\">2</a><a href=\"/&sect;x\">3</a>"
+                        + "<a href=\"/x&copy\">4</a><a href=\"/e?x&copy=1\">5</a><a href=\"/&lt&#65&#x42\">6</a>"
+                        + "<a href=\"/&notit;&NotANamedEntity;\">7</a><a href=\"/&eacute;&Eacute;&hellip;\">8</a>"
+        );
+    }
+
+    @Test
+    public void test07_longHref() throws IOException {
+        final String longPath = "/" + String.join("", Collections.nCopies(70_000, "x"));
+        test(
+                "/long.html", "text/html", StandardCharsets.UTF_8, "",
+                "<a href=\"" + longPath + "\" href=\"/second\">long</a><a href=\"/first\" href=\"" + longPath + "\">"
+                        + "<a href=\"/first\" href=\"/last\">dup</a><a href=\"/after-long\">x</a>",
+                link -> !link.endsWith(longPath)
+        );
+    }
+
+    private static void test(
+            final String path,
+            final String contentType,
+            final Charset charset,
+            final String head,
+            final String tail) throws IOException {
+        test(path, contentType, charset, head, tail, link -> true);
+    }
+
+    /**
+     * Compares extracted links with Jsoup ones accepted by the filter. Links Jsoup reports
+     * but the downloader deliberately skips, like over-long <tt>href</tt> values, are filtered out.
+     */
+    private static void test(
+            final String path,
+            final String contentType,
+            final Charset charset,
+            final String head,
+            final String tail,
+            final Predicate<String> filter) throws IOException {
+        final byte[] body = String.format(MARKUP, head, tail).getBytes(charset);
+        pages.put(path, new Page(contentType, body));
+        final String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+
+        final List<String> expected = jsoupLinks(url, body).stream().filter(filter).collect(Collectors.toList());
+        try (final CachingDownloader downloader = new CachingDownloader(
+                Files.createTempDirectory(LinkExtractionTest.class.getName()).toFile(), true, Long.MAX_VALUE / 2
+        )) {
+            Assert.assertEquals("Downloaded links", expected, downloader.download(url).extractLinks());
+            pages.remove(path);
+            Assert.assertEquals("Cached links", expected, downloader.download(url).extractLinks());
+        }
+    }
+
+    private static List<String> jsoupLinks(final String url, final byte[] body) throws IOException {
+        final URI uri = URLUtils.getURI(url);
+        final List<String> result = new ArrayList<>();
+        for (final Element element : Jsoup.parse(new ByteArrayInputStream(body), null, url).select("a[href]")) {
+            try {
+                final URI href = uri.resolve(element.attr("href"));
+                if (("http".equalsIgnoreCase(href.getScheme()) || "https".equals(href.getScheme())) && href.getHost() != null) {
+                    result.add(URLUtils.removeFragment(href.normalize().toString()));
+                }
+            } catch (final IllegalArgumentException e) {
+                // Invalid URI, ignore
+            }
+        }
+        return result;
+    }
+
+    private static class Page {
+        final String contentType;
+        final byte[] body;
+
+        Page(final String contentType, final byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
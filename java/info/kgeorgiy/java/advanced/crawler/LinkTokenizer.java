@@ -0,0 +1,249 @@
+package info.kgeorgiy.java.advanced.crawler;
+
+import org.jsoup.parser.Parser;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Incremental HTML tokenizer that reports <tt>href</tt> values of <tt>a</tt> tags.
+ * Characters are fed in arbitrary chunks, so a page never has to be kept in memory.
+ */
+class LinkTokenizer {
+    private static final int MAX_NAME_LENGTH = 16;
+    private static final int MAX_VALUE_LENGTH = 1 << 16;
+    private static final Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList(
+            "script", "style", "title", "textarea", "noframes", "xmp", "iframe", "noembed"
+    ));
+
+    private enum State {
+        TEXT, TAG_OPEN, MARKUP, COMMENT, BOGUS, TAG_NAME, IN_TAG,
+        ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME, BEFORE_VALUE, QUOTED_VALUE, UNQUOTED_VALUE, RAW_TEXT, PLAINTEXT
+    }
+
+    private final Consumer<String> hrefs;
+    private final StringBuilder tagName = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder attributeName = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder value = new StringBuilder();
+    private State state = State.TEXT;
+    private String href;
+    private boolean valueTruncated;
+    private char quote;
+    private int dashes;
+    private String rawTextEnd;
+    private int rawTextMatched;
+
+    /**
+     * Creates a new tokenizer.
+     *
+     * @param hrefs consumer of raw (unresolved, entity-decoded) <tt>href</tt> values.
+     */
+    LinkTokenizer(final Consumer<String> hrefs) {
+        this.hrefs = hrefs;
+    }
+
+    /**
+     * Feeds next chunk of the document.
+     *
+     * @param chars buffer.
+     * @param offset chunk offset.
+     * @param length chunk length.
+     */
+    void feed(final char[] chars, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            feed(chars[i]);
+        }
+    }
+
+    private void feed(final char c) {
+        switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    state = State.TAG_OPEN;
+                }
+                break;
+            case TAG_OPEN:
+                if (c == '!') {
+                    dashes = 0;
+                    state = State.MARKUP;
+                } else if (c == '/' || c == '?') {
+                    state = State.BOGUS;
+                } else if (Character.isLetter(c)) {
+                    tagName.setLength(0);
+                    tagName.append(Character.toLowerCase(c));
+                    href = null;
+                    state = State.TAG_NAME;
+                } else if (c != '<') {
+                    state = State.TEXT;
+                }
+                break;
+            case MARKUP:
+                if (c == '-' && ++dashes == 2) {
+                    dashes = 0;
+                    state = State.COMMENT;
+                } else if (c == '>') {
+                    state = State.TEXT;
+                } else if (c != '-') {
+                    state = State.BOGUS;
+                }
+                break;
+            case COMMENT:
+                if (c == '-') {
+                    dashes++;
+                } else if (c == '>' && dashes >= 2) {
+                    state = State.TEXT;
+                } else {
+                    dashes = 0;
+                }
+                break;
+            case BOGUS:
+                if (c == '>') {
+                    state = State.TEXT;
+                }
+                break;
+            case TAG_NAME:
+                if (c == '>') {
+                    endTag();
+                } else if (Character.isWhitespace(c) || c == '/') {
+                    state = State.IN_TAG;
+                } else if (tagName.length() < MAX_NAME_LENGTH) {
+                    tagName.append(Character.toLowerCase(c));
+                }
+                break;
+            case IN_TAG:
+                if (c == '>') {
+                    endTag();
+                } else if (!Character.isWhitespace(c) && c != '/') {
+                    startAttribute(c);
+                }
+                break;
+            case ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    attribute("");
+                    endTag();
+                } else if (Character.isWhitespace(c)) {
+                    state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    attribute("");
+                    state = State.IN_TAG;
+                } else if (attributeName.length() < MAX_NAME_LENGTH) {
+                    attributeName.append(Character.toLowerCase(c));
+                }
+                break;
+            case AFTER_ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    attribute("");
+                    endTag();
+                } else if (!Character.isWhitespace(c)) {
+                    attribute("");
+                    startAttribute(c);
+                }
+                break;
+            case BEFORE_VALUE:
+                value.setLength(0);
+                valueTruncated = false;
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                    state = State.QUOTED_VALUE;
+                } else if (c == '>') {
+                    attribute("");
+                    endTag();
+                } else if (!Character.isWhitespace(c)) {
+                    appendValue(c);
+                    state = State.UNQUOTED_VALUE;
+                }
+                break;
+            case QUOTED_VALUE:
+                if (c == quote) {
+                    attribute(value);
+                    state = State.IN_TAG;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case UNQUOTED_VALUE:
+                if (c == '>') {
+                    attribute(value);
+                    endTag();
+                } else if (Character.isWhitespace(c)) {
+                    attribute(value);
+                    state = State.IN_TAG;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case RAW_TEXT:
+                if (rawTextMatched == rawTextEnd.length()) {
+                    if (c == '>') {
+                        state = State.TEXT;
+                        break;
+                    }
+                    if (Character.isWhitespace(c) || c == '/') {
+                        state = State.BOGUS;
+                        break;
+                    }
+                    rawTextMatched = 0;
+                }
+                if (Character.toLowerCase(c) == rawTextEnd.charAt(rawTextMatched)) {
+                    rawTextMatched++;
+                } else {
+                    rawTextMatched = c == '<' ? 1 : 0;
+                }
+                break;
+            case PLAINTEXT:
+                break;
+            default:
+                throw new AssertionError("Unknown state " + state);
+        }
+    }
+
+    private void startAttribute(final char c) {
+        attributeName.setLength(0);
+        attributeName.append(Character.toLowerCase(c));
+        state = State.ATTRIBUTE_NAME;
+    }
+
+    private boolean isHref() {
+        return "a".contentEquals(tagName) && "href".contentEquals(attributeName);
+    }
+
+    private void appendValue(final char c) {
+        if (isHref()) {
+            if (value.length() < MAX_VALUE_LENGTH) {
+                value.append(c);
+            } else {
+                valueTruncated = true;
+            }
+        }
+    }
+
+    private void attribute(final CharSequence attributeValue) {
+        if (isHref()) {
+            href = valueTruncated ? null : Parser.unescapeEntities(attributeValue.toString(), true);
+        }
+    }
+
+    private void endTag() {
+        if (href != null) {
+            hrefs.accept(href);
+            href = null;
+        }
+
+        final String name = tagName.toString();
+        if (RAW_TEXT_TAGS.contains(name)) {
+            rawTextEnd = "</" + name;
+            rawTextMatched = 0;
+            state = State.RAW_TEXT;
+        } else if ("plaintext".equals(name)) {
+            state = State.PLAINTEXT;
+        } else {
+            state = State.TEXT;
+        }
+    }
+}
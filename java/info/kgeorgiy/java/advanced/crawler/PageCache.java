@@ -0,0 +1,293 @@
+package info.kgeorgiy.java.advanced.crawler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent content-addressed page cache. Page bodies are stored once per distinct
+ * content under <tt>objects/&lt;first two hash digits&gt;/&lt;SHA-256&gt;</tt>, and an
+ * append-only <tt>index</tt> file maps URLs to bodies and HTTP validators.
+ * The index is compacted every time the cache is opened.
+ */
+class PageCache implements Closeable {
+    private static final String INDEX = "index";
+    private static final String OBJECTS = "objects";
+    private static final int INDEX_VERSION = 0x50430002;
+
+    private final Path directory;
+    private final Path objects;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final DataOutputStream index;
+
+    /**
+     * Opens cache in the specified directory, creating it if necessary.
+     *
+     * @param directory cache directory.
+     *
+     * @throws IOException if an error occurred.
+     */
+    PageCache(final Path directory) throws IOException {
+        this.directory = directory;
+        this.objects = directory.resolve(OBJECTS);
+        Files.createDirectories(objects);
+
+        final Path indexFile = directory.resolve(INDEX);
+        if (Files.exists(indexFile)) {
+            load(indexFile);
+        }
+        compact(indexFile);
+        index = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexFile, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Returns cached entry for the URL.
+     *
+     * @param url URL to look up.
+     *
+     * @return cached entry or <tt>null</tt> if there is none.
+     */
+    Entry get(final String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Stores entry and appends it to the index.
+     *
+     * @param entry entry to store.
+     *
+     * @throws IOException if an error occurred.
+     */
+    void put(final Entry entry) throws IOException {
+        entries.put(entry.url, entry);
+        synchronized (index) {
+            entry.write(index);
+            index.flush();
+        }
+    }
+
+    /**
+     * Flushes and closes the index.
+     *
+     * @throws IOException if an error occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (index) {
+            index.close();
+        }
+    }
+
+    /**
+     * Returns file containing body of the cached entry.
+     *
+     * @param entry cached entry.
+     *
+     * @return body file.
+     */
+    Path getBody(final Entry entry) {
+        return objects.resolve(entry.hash.substring(0, 2)).resolve(entry.hash);
+    }
+
+    /**
+     * Starts writing a new body. The body has to be either {@link PendingBody#commit() committed}
+     * or {@link PendingBody#close() closed}.
+     *
+     * @return pending body.
+     *
+     * @throws IOException if an error occurred.
+     */
+    PendingBody create() throws IOException {
+        return new PendingBody(Files.createTempFile(objects, "pending", ".tmp"));
+    }
+
+    private void load(final Path indexFile) throws IOException {
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (is.readInt() != INDEX_VERSION) {
+                // Index of an older format, start over
+                return;
+            }
+            while (true) {
+                final Entry entry = Entry.read(is);
+                if (Files.exists(getBody(entry))) {
+                    entries.put(entry.url, entry);
+                }
+            }
+        } catch (final EOFException e) {
+            // End of index or truncated last record
+        }
+    }
+
+    private void compact(final Path indexFile) throws IOException {
+        final Path temp = Files.createTempFile(directory, INDEX, ".tmp");
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            os.writeInt(INDEX_VERSION);
+            for (final Entry entry : entries.values()) {
+                entry.write(os);
+            }
+        }
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Body being written to the cache. Its name is the SHA-256 of its content,
+     * so equal bodies of different URLs are stored once.
+     */
+    class PendingBody implements Closeable {
+        private final Path file;
+        private final MessageDigest digest;
+        private final OutputStream stream;
+        private boolean committed;
+
+        private PendingBody(final Path file) throws IOException {
+            this.file = file;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new AssertionError("SHA-256 is not supported", e);
+            }
+            this.stream = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), digest);
+        }
+
+        /**
+         * Returns stream to write body to.
+         */
+        OutputStream getStream() {
+            return stream;
+        }
+
+        /**
+         * Moves written body to its content-addressed location.
+         *
+         * @return content hash of the body.
+         *
+         * @throws IOException if an error occurred.
+         */
+        String commit() throws IOException {
+            stream.close();
+            final String hash = toHex(digest.digest());
+            final Path target = objects.resolve(hash.substring(0, 2)).resolve(hash);
+            if (Files.exists(target)) {
+                Files.delete(file);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            committed = true;
+            return hash;
+        }
+
+        /**
+         * Discards body if it was not committed.
+         *
+         * @throws IOException if an error occurred.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                stream.close();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Cached page: body hash, content type, HTTP validators and expiration time.
+     */
+    static class Entry {
+        final String url;
+        final String hash;
+        final String contentType;
+        final String etag;
+        final String lastModified;
+        final long expires;
+
+        Entry(
+                final String url,
+                final String hash,
+                final String contentType,
+                final String etag,
+                final String lastModified,
+                final long expires
+        ) {
+            this.url = url;
+            this.hash = hash;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expires = expires;
+        }
+
+        /**
+         * Returns copy of this entry with updated validators and expiration time.
+         */
+        Entry revalidated(final String etag, final String lastModified, final long expires) {
+            return new Entry(
+                    url,
+                    hash,
+                    contentType,
+                    etag != null ? etag : this.etag,
+                    lastModified != null ? lastModified : this.lastModified,
+                    expires
+            );
+        }
+
+        boolean isFresh(final long now) {
+            return now < expires;
+        }
+
+        private void write(final DataOutputStream os) throws IOException {
+            writeString(os, url);
+            writeString(os, hash);
+            writeNullable(os, contentType);
+            writeNullable(os, etag);
+            writeNullable(os, lastModified);
+            os.writeLong(expires);
+        }
+
+        private static Entry read(final DataInputStream is) throws IOException {
+            return new Entry(readString(is), readString(is), readNullable(is), readNullable(is), readNullable(is), is.readLong());
+        }
+
+        private static void writeNullable(final DataOutputStream os, final String value) throws IOException {
+            os.writeBoolean(value != null);
+            if (value != null) {
+                writeString(os, value);
+            }
+        }
+
+        private static String readNullable(final DataInputStream is) throws IOException {
+            return is.readBoolean() ? readString(is) : null;
+        }
+
+        private static void writeString(final DataOutputStream os, final String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            os.writeInt(bytes.length);
+            os.write(bytes);
+        }
+
+        private static String readString(final DataInputStream is) throws IOException {
+            final int length = is.readInt();
+            if (length < 0) {
+                throw new EOFException("Corrupted index record");
+            }
+            final byte[] bytes = new byte[length];
+            is.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
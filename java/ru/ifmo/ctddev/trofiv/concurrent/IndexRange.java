@@ -0,0 +1,23 @@
+package ru.ifmo.ctddev.trofiv.concurrent;
+
+class IndexRange {
+    private final int from;
+    private final int to;
+
+    IndexRange(final int from, final int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    int getFrom() {
+        return from;
+    }
+
+    int getTo() {
+        return to;
+    }
+
+    int size() {
+        return to - from;
+    }
+}
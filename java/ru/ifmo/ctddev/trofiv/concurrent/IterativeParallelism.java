@@ -4,13 +4,16 @@ import info.kgeorgiy.java.advanced.concurrent.ListIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
 
 import static java.util.function.UnaryOperator.identity;
 
 public class IterativeParallelism implements ListIP {
-    private final Object lock = new Object();
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
     private final ParallelMapper mapper;
 
     public IterativeParallelism() {
@@ -61,83 +64,320 @@ public class IterativeParallelism implements ListIP {
         return parallelizeList(threads, Monoid, predicate::test, values);
     }
 
-    private <T, E> E parallelizeList(
+    public <T> List<T> topK(
             final int threads,
-            final Monoid<E> monoid,
-            final Function<? super T, ? extends E> caster,
-            final List<? extends T> values)
+            final List<? extends T> values,
+            final int k,
+            final Comparator<? super T> comparator)
             throws InterruptedException {
-        final int actualThreads = threads > values.size() ? values.size() : threads;
-        final int chunkSize = values.size() / actualThreads;
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
 
-        return mapper == null
-                ? parallelizeManually(monoid, caster, values, chunkSize)
-                : parallelizeViaMapper(monoid, caster, values, chunkSize, mapper);
+        final List<PriorityQueue<T>> heaps = parallelizeChunks(threads, values, chunk -> {
+            final PriorityQueue<T> heap = new PriorityQueue<>(Math.min(k, chunk.size()) + 1, comparator);
+            for (T element : chunk) {
+                offerBounded(heap, element, k, comparator);
+            }
+            return heap;
+        });
+
+        final PriorityQueue<T> result = new PriorityQueue<>(Math.min(k, values.size()) + 1, comparator);
+        for (PriorityQueue<T> heap : heaps) {
+            for (T element : heap) {
+                offerBounded(result, element, k, comparator);
+            }
+        }
+
+        final List<T> answer = new ArrayList<>(result.size());
+        while (!result.isEmpty()) {
+            answer.add(result.poll());
+        }
+        Collections.reverse(answer);
+        return answer;
     }
 
-    private <T, E> E parallelizeManually(
-            final Monoid<E> monoid,
-            final Function<? super T, ? extends E> caster,
+    private static <T> void offerBounded(
+            final PriorityQueue<T> heap,
+            final T element,
+            final int k,
+            final Comparator<? super T> comparator) {
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (comparator.compare(element, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    public <T> List<T> sort(
+            final int threads,
             final List<? extends T> values,
-            final int chunkSize)
+            final Comparator<? super T> comparator)
             throws InterruptedException {
-        final Accumulator<E> result = new Accumulator<>(monoid.getNeutral(), 0);
-        final Collection<Thread> threadList = new ArrayList<>(values.size());
+        final List<List<T>> sortedChunks = parallelizeChunks(threads, values, chunk -> {
+            final List<T> sorted = new ArrayList<>(chunk);
+            sorted.sort(comparator);
+            return sorted;
+        });
 
-        for (int left = 0, index = 0; left < values.size(); left += chunkSize, index++) {
-            final int right = Math.min(left + chunkSize, values.size());
-            final List<? extends T> subList = values.subList(left, right);
-            final ChunkRunnable<T, E> chunkRunnable = new ChunkRunnable<>(lock, index, monoid, result, subList, caster);
-            final Thread thread = new Thread(chunkRunnable, "ThreadChunk" + index);
-            thread.start();
-            threadList.add(thread);
+        final PriorityQueue<MergeCursor<T>> cursors = new PriorityQueue<>(Math.max(sortedChunks.size(), 1), (a, b) -> {
+            final int compared = comparator.compare(a.current(), b.current());
+            return compared != 0 ? compared : Integer.compare(a.getChunkIndex(), b.getChunkIndex());
+        });
+        for (int i = 0; i < sortedChunks.size(); i++) {
+            cursors.add(new MergeCursor<>(i, sortedChunks.get(i)));
         }
 
-        for (Thread thread : threadList) {
-            thread.join();
+        final List<T> result = new ArrayList<>(values.size());
+        while (!cursors.isEmpty()) {
+            final MergeCursor<T> cursor = cursors.poll();
+            result.add(cursor.current());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
         }
+        return result;
+    }
 
-        return result.getValue();
+    public <T, R> R mapReduce(
+            final int threads,
+            final List<? extends T> values,
+            final Function<? super T, ? extends R> mapFunction,
+            final Monoid<R> monoid)
+            throws InterruptedException {
+        return parallelizeList(threads, monoid, mapFunction, values);
     }
 
-    private static <T, E> E parallelizeViaMapper(
-            final Monoid<E> monoid,
-            final Function<? super T, ? extends E> caster,
+    @SuppressWarnings("unchecked")
+    public <T, A, R> R collect(
+            final int threads,
             final List<? extends T> values,
-            final int chunkSize,
-            final ParallelMapper mapper)
+            final Collector<? super T, A, R> collector)
             throws InterruptedException {
-        final List<List<? extends T>> tasks = new ArrayList<>(values.size());
+        final Supplier<A> supplier = collector.supplier();
+        final BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        final List<A> containers = parallelizeChunks(threads, values, chunk -> {
+            final A container = supplier.get();
+            for (T element : chunk) {
+                accumulator.accept(container, element);
+            }
+            return container;
+        });
 
-        for (int left = 0; left < values.size(); left += chunkSize) {
-            final int right = Math.min(left + chunkSize, values.size());
-            tasks.add(values.subList(left, right));
+        A answer = containers.isEmpty() ? supplier.get() : containers.get(0);
+
+        for (int i = 1; i < containers.size(); i++) {
+            answer = collector.combiner().apply(answer, containers.get(i));
         }
 
-        final List<E> result = mapper.map(t -> {
+        return collector.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)
+                ? (R) answer
+                : collector.finisher().apply(answer);
+    }
+
+    private <T, E> E parallelizeList(
+            final int threads,
+            final Monoid<E> monoid,
+            final Function<? super T, ? extends E> caster,
+            final List<? extends T> values)
+            throws InterruptedException {
+        final List<E> chunkResults = parallelizeChunks(threads, values, chunk -> {
             E accumulator = monoid.getNeutral();
-            for (T element : t) {
+            for (T element : chunk) {
                 accumulator = monoid.operation(accumulator, caster.apply(element));
             }
             return accumulator;
-        }, tasks);
+        });
 
-        E answer = result.get(0);
+        if (chunkResults.isEmpty()) {
+            return monoid.getNeutral();
+        }
+
+        E answer = chunkResults.get(0);
 
-        for (int i = 1; i < result.size(); i++) {
-            answer = monoid.operation(answer, result.get(i));
+        for (int i = 1; i < chunkResults.size(); i++) {
+            answer = monoid.operation(answer, chunkResults.get(i));
         }
 
         return answer;
     }
 
+    private <T, E> List<E> parallelizeChunks(
+            final int threads,
+            final List<? extends T> values,
+            final Function<? super List<? extends T>, ? extends E> chunkFunction)
+            throws InterruptedException {
+        checkThreads(threads);
+        final int actualThreads = threads > values.size() ? values.size() : threads;
+        final List<List<? extends T>> chunks = values instanceof RandomAccess
+                ? splitRandomAccess(values, actualThreads)
+                : splitSequential(values, actualThreads);
+
+        return parallelize(chunkFunction, chunks);
+    }
+
+    <E> List<E> parallelizeRanges(
+            final int threads,
+            final int size,
+            final Function<? super IndexRange, ? extends E> rangeFunction)
+            throws InterruptedException {
+        checkThreads(threads);
+        final int actualThreads = threads > size ? size : threads;
+        return parallelize(rangeFunction, splitRanges(size, actualThreads));
+    }
+
+    private <C, E> List<E> parallelize(
+            final Function<? super C, ? extends E> chunkFunction,
+            final List<C> chunks)
+            throws InterruptedException {
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return mapper == null
+                ? parallelizeManually(chunkFunction, chunks)
+                : mapper.map(chunkFunction, chunks);
+    }
+
+    private static void checkThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads count must be positive: " + threads);
+        }
+    }
+
+    private static List<IndexRange> splitRanges(final int size, final int chunksCount) {
+        final List<IndexRange> ranges = new ArrayList<>(chunksCount);
+        for (int index = 0, left = 0; index < chunksCount; index++) {
+            final int right = left + chunkSize(size, chunksCount, index);
+            ranges.add(new IndexRange(left, right));
+            left = right;
+        }
+        return ranges;
+    }
+
+    private static <T> List<List<? extends T>> splitRandomAccess(
+            final List<? extends T> values,
+            final int chunksCount) {
+        final List<List<? extends T>> chunks = new ArrayList<>(chunksCount);
+        for (IndexRange range : splitRanges(values.size(), chunksCount)) {
+            chunks.add(values.subList(range.getFrom(), range.getTo()));
+        }
+        return chunks;
+    }
+
+    private static <T> List<List<? extends T>> splitSequential(
+            final List<? extends T> values,
+            final int chunksCount) {
+        final List<List<? extends T>> chunks = new ArrayList<>(chunksCount);
+        final Iterator<? extends T> iterator = values.iterator();
+        for (int index = 0; index < chunksCount; index++) {
+            final int size = chunkSize(values.size(), chunksCount, index);
+            final List<T> chunk = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                chunk.add(iterator.next());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static int chunkSize(final int size, final int chunksCount, final int index) {
+        return size / chunksCount + (index < size % chunksCount ? 1 : 0);
+    }
+
+    private static <C, E> List<E> parallelizeManually(
+            final Function<? super C, ? extends E> chunkFunction,
+            final List<C> chunks)
+            throws InterruptedException {
+        final List<E> result = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        final Collection<Thread> threadList = new ArrayList<>(chunks.size());
+        final Collection<ChunkRunnable<C, E>> runnables = new ArrayList<>(chunks.size());
+
+        for (int index = 0; index < chunks.size(); index++) {
+            final ChunkRunnable<C, E> chunkRunnable = new ChunkRunnable<>(index, result, chunks.get(index), chunkFunction);
+            final Thread thread = new Thread(chunkRunnable, "ThreadChunk" + index);
+            thread.start();
+            threadList.add(thread);
+            runnables.add(chunkRunnable);
+        }
+
+        for (Thread thread : threadList) {
+            thread.join();
+        }
+
+        Throwable failure = null;
+        for (ChunkRunnable<C, E> runnable : runnables) {
+            final Throwable cause = runnable.getFailure();
+            if (cause == null) {
+                continue;
+            }
+            if (failure == null) {
+                failure = cause;
+            } else {
+                failure.addSuppressed(cause);
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+
+        return result;
+    }
+
     @Override
     public String join(
             final int threads,
             final List<?> values)
             throws InterruptedException {
-        final Monoid<StringBuilder> Monoid = new Monoid<>(StringBuilder::append, StringBuilder::new);
-        return this.parallelizeList(threads, Monoid, o -> new StringBuilder(o.toString()), values).toString();
+        return join(threads, values, "", "", "");
+    }
+
+    public String join(
+            final int threads,
+            final List<?> values,
+            final CharSequence delimiter,
+            final CharSequence prefix,
+            final CharSequence suffix)
+            throws InterruptedException {
+        final String separator = delimiter.toString();
+        final List<String> chunks = parallelizeChunks(threads, values, chunk -> renderChunk(chunk, separator));
+
+        long length = (long) prefix.length() + suffix.length() + (long) separator.length() * Math.max(chunks.size() - 1, 0);
+        for (String chunk : chunks) {
+            length += chunk.length();
+        }
+        if (length > MAX_ARRAY_LENGTH) {
+            throw new OutOfMemoryError("Required length exceeds implementation limit");
+        }
+
+        final StringBuilder builder = new StringBuilder((int) length).append(prefix);
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(chunks.get(i));
+        }
+        return builder.append(suffix).toString();
+    }
+
+    private static String renderChunk(final List<?> chunk, final String separator) {
+        final StringBuilder builder = new StringBuilder();
+        boolean first = true;
+        for (Object element : chunk) {
+            if (!first) {
+                builder.append(separator);
+            }
+            builder.append(element);
+            first = false;
+        }
+        return builder.toString();
     }
 
     @Override
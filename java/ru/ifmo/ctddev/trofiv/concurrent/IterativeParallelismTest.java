@@ -0,0 +1,37 @@
+package ru.ifmo.ctddev.trofiv.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+public class IterativeParallelismTest {
+    private static final List<Integer> VALUES = Arrays.asList(5, 3, 9, 1, 7);
+    private static final List<Integer> RANKED = Arrays.asList(9, 7, 5, 3, 1);
+
+    @Test
+    public void test01_topKPrefix() throws InterruptedException {
+        Assert.assertEquals(Arrays.asList(9, 7), topK(2, VALUES, 2));
+    }
+
+    @Test
+    public void test02_topKAll() throws InterruptedException {
+        Assert.assertEquals(RANKED, topK(2, VALUES, VALUES.size()));
+        Assert.assertEquals(RANKED, topK(3, VALUES, VALUES.size() + 1));
+        Assert.assertEquals(RANKED, topK(2, new LinkedList<>(VALUES), 1_000_000_000));
+    }
+
+    @Test
+    public void test03_topKMaxValue() throws InterruptedException {
+        Assert.assertEquals(RANKED, topK(2, VALUES, Integer.MAX_VALUE));
+        Assert.assertEquals(RANKED, topK(10, VALUES, Integer.MAX_VALUE));
+    }
+
+    private static List<Integer> topK(final int threads, final List<Integer> values, final int k)
+            throws InterruptedException {
+        return new IterativeParallelism().topK(threads, values, k, Comparator.naturalOrder());
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ifmo.ctddev.trofiv.concurrent;
+
+import java.util.List;
+
+class MergeCursor<T> {
+    private final int chunkIndex;
+    private final List<T> chunk;
+    private int position;
+
+    MergeCursor(final int chunkIndex, final List<T> chunk) {
+        this.chunkIndex = chunkIndex;
+        this.chunk = chunk;
+    }
+
+    int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    T current() {
+        return chunk.get(position);
+    }
+
+    boolean advance() {
+        position++;
+        return position < chunk.size();
+    }
+}
@@ -0,0 +1,294 @@
+package ru.ifmo.ctddev.trofiv.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.*;
+
+public class PrimitiveParallelism {
+    private final IterativeParallelism parallelism;
+
+    public PrimitiveParallelism() {
+        this.parallelism = new IterativeParallelism();
+    }
+
+    public PrimitiveParallelism(final ParallelMapper mapper) {
+        this.parallelism = new IterativeParallelism(mapper);
+    }
+
+    public int maximum(final int threads, final int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Integer> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            int result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        });
+        int result = chunks.get(0);
+        for (int chunk : chunks) {
+            result = Math.max(result, chunk);
+        }
+        return result;
+    }
+
+    public long maximum(final int threads, final long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Long> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            long result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        });
+        long result = chunks.get(0);
+        for (long chunk : chunks) {
+            result = Math.max(result, chunk);
+        }
+        return result;
+    }
+
+    public double maximum(final int threads, final double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Double> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            double result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        });
+        double result = chunks.get(0);
+        for (double chunk : chunks) {
+            result = Math.max(result, chunk);
+        }
+        return result;
+    }
+
+    public int minimum(final int threads, final int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Integer> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            int result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        });
+        int result = chunks.get(0);
+        for (int chunk : chunks) {
+            result = Math.min(result, chunk);
+        }
+        return result;
+    }
+
+    public long minimum(final int threads, final long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Long> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            long result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        });
+        long result = chunks.get(0);
+        for (long chunk : chunks) {
+            result = Math.min(result, chunk);
+        }
+        return result;
+    }
+
+    public double minimum(final int threads, final double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        final List<Double> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            double result = values[range.getFrom()];
+            for (int i = range.getFrom() + 1; i < range.getTo(); i++) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        });
+        double result = chunks.get(0);
+        for (double chunk : chunks) {
+            result = Math.min(result, chunk);
+        }
+        return result;
+    }
+
+    public long sum(final int threads, final int[] values) throws InterruptedException {
+        final List<Long> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            long result = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                result += values[i];
+            }
+            return result;
+        });
+        long result = 0;
+        for (long chunk : chunks) {
+            result += chunk;
+        }
+        return result;
+    }
+
+    public long sum(final int threads, final long[] values) throws InterruptedException {
+        final List<Long> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            long result = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                result += values[i];
+            }
+            return result;
+        });
+        long result = 0;
+        for (long chunk : chunks) {
+            result += chunk;
+        }
+        return result;
+    }
+
+    public double sum(final int threads, final double[] values) throws InterruptedException {
+        final List<Double> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            double result = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                result += values[i];
+            }
+            return result;
+        });
+        double result = 0;
+        for (double chunk : chunks) {
+            result += chunk;
+        }
+        return result;
+    }
+
+    public int count(final int threads, final int[] values, final IntPredicate predicate)
+            throws InterruptedException {
+        return count(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    public int count(final int threads, final long[] values, final LongPredicate predicate)
+            throws InterruptedException {
+        return count(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    public int count(final int threads, final double[] values, final DoublePredicate predicate)
+            throws InterruptedException {
+        return count(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    private int count(final int threads, final int size, final IntPredicate indexPredicate)
+            throws InterruptedException {
+        final List<Integer> chunks = parallelism.parallelizeRanges(threads, size, range -> {
+            int result = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                if (indexPredicate.test(i)) {
+                    result++;
+                }
+            }
+            return result;
+        });
+        int result = 0;
+        for (int chunk : chunks) {
+            result += chunk;
+        }
+        return result;
+    }
+
+    public int[] map(final int threads, final int[] values, final IntUnaryOperator function)
+            throws InterruptedException {
+        final int[] result = new int[values.length];
+        forEachIndex(threads, values.length, i -> result[i] = function.applyAsInt(values[i]));
+        return result;
+    }
+
+    public long[] map(final int threads, final long[] values, final LongUnaryOperator function)
+            throws InterruptedException {
+        final long[] result = new long[values.length];
+        forEachIndex(threads, values.length, i -> result[i] = function.applyAsLong(values[i]));
+        return result;
+    }
+
+    public double[] map(final int threads, final double[] values, final DoubleUnaryOperator function)
+            throws InterruptedException {
+        final double[] result = new double[values.length];
+        forEachIndex(threads, values.length, i -> result[i] = function.applyAsDouble(values[i]));
+        return result;
+    }
+
+    private void forEachIndex(final int threads, final int size, final IntConsumer action)
+            throws InterruptedException {
+        parallelism.parallelizeRanges(threads, size, range -> {
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                action.accept(i);
+            }
+            return range;
+        });
+    }
+
+    public int[] filter(final int threads, final int[] values, final IntPredicate predicate)
+            throws InterruptedException {
+        final List<int[]> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            final int[] buffer = new int[range.size()];
+            int count = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                if (predicate.test(values[i])) {
+                    buffer[count++] = values[i];
+                }
+            }
+            return Arrays.copyOf(buffer, count);
+        });
+        return concat(chunks, new int[0]);
+    }
+
+    public long[] filter(final int threads, final long[] values, final LongPredicate predicate)
+            throws InterruptedException {
+        final List<long[]> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            final long[] buffer = new long[range.size()];
+            int count = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                if (predicate.test(values[i])) {
+                    buffer[count++] = values[i];
+                }
+            }
+            return Arrays.copyOf(buffer, count);
+        });
+        return concat(chunks, new long[0]);
+    }
+
+    public double[] filter(final int threads, final double[] values, final DoublePredicate predicate)
+            throws InterruptedException {
+        final List<double[]> chunks = parallelism.parallelizeRanges(threads, values.length, range -> {
+            final double[] buffer = new double[range.size()];
+            int count = 0;
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                if (predicate.test(values[i])) {
+                    buffer[count++] = values[i];
+                }
+            }
+            return Arrays.copyOf(buffer, count);
+        });
+        return concat(chunks, new double[0]);
+    }
+
+    @SuppressWarnings({"unchecked", "SuspiciousSystemArraycopy"})
+    private static <A> A concat(final List<A> chunks, final A empty) {
+        int length = 0;
+        for (A chunk : chunks) {
+            length += Array.getLength(chunk);
+        }
+
+        final A result = (A) Array.newInstance(empty.getClass().getComponentType(), length);
+        int position = 0;
+        for (A chunk : chunks) {
+            final int chunkLength = Array.getLength(chunk);
+            System.arraycopy(chunk, 0, result, position, chunkLength);
+            position += chunkLength;
+        }
+        return result;
+    }
+
+    private static void checkNotEmpty(final int length) {
+        if (length == 0) {
+            throw new NoSuchElementException("Array is empty");
+        }
+    }
+}
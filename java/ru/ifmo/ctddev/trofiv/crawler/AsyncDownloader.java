@@ -0,0 +1,9 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncDownloader {
+    CompletableFuture<Document> download(String url);
+}
@@ -0,0 +1,224 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Crawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static info.kgeorgiy.java.advanced.crawler.URLUtils.getHost;
+
+public class AsyncWebCrawler implements Crawler {
+    private static final int FRONTIER_WINDOW = 8192;
+    private static final int ADMISSIONS_PER_DOWNLOADER = 64;
+
+    private final AsyncDownloader downloader;
+    private final ExecutorService extractThreadPool;
+    private final HostLimiter downloadLimiter;
+    private final ConcurrentMap<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>(1024, 0.75f);
+    private final int perHost;
+    private final int admissionLimit;
+    private final CrawlMode mode;
+    private final Supplier<? extends VisitedSet> visitedSets;
+
+    public AsyncWebCrawler(
+            final AsyncDownloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost) {
+        this(downloader, downloaders, extractors, perHost, CrawlMode.ASYNCHRONOUS);
+    }
+
+    public AsyncWebCrawler(
+            final AsyncDownloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final CrawlMode mode) {
+        this(downloader, downloaders, extractors, perHost, mode, HashVisitedSet::new);
+    }
+
+    public AsyncWebCrawler(
+            final AsyncDownloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final CrawlMode mode,
+            final Supplier<? extends VisitedSet> visitedSets) {
+        this.downloader = downloader;
+        this.downloadLimiter = new HostLimiter(downloaders);
+        this.perHost = perHost;
+        this.admissionLimit = (int) Math.min(Integer.MAX_VALUE, (long) ADMISSIONS_PER_DOWNLOADER * downloaders);
+        this.mode = mode;
+        this.visitedSets = visitedSets;
+        extractThreadPool = Executors.newFixedThreadPool(extractors);
+    }
+
+    @Override
+    public Result download(final String url, final int depth) {
+        try {
+            return process(url, depth);
+        } catch (InterruptedException ignored) {
+            return new Result(Collections.emptyList(), Collections.emptyMap());
+        }
+    }
+
+    @Override
+    public void close() {
+        extractThreadPool.shutdown();
+        try {
+            extractThreadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private Result process(final String url, final int depth) throws InterruptedException {
+        try (CrawlSession session = new CrawlSession(
+                visitedSets.get(),
+                depth,
+                mode == CrawlMode.LEVEL_SYNCHRONOUS,
+                FRONTIER_WINDOW,
+                admissionLimit)) {
+            session.enqueue(url, 1);
+            if (mode == CrawlMode.LEVEL_SYNCHRONOUS) {
+                while (session.advanceLevel()) {
+                    dispatchAndAwait(session);
+                }
+            } else {
+                dispatchAndAwait(session);
+            }
+            return session.toResult();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void dispatchAndAwait(final CrawlSession session) throws InterruptedException {
+        session.taskStarted();
+        dispatch(session);
+        session.taskFinished();
+        session.awaitIdle();
+    }
+
+    private void dispatch(final CrawlSession session) {
+        FrontierEntry entry;
+        while ((entry = session.admit()) != null) {
+            session.taskStarted();
+            try {
+                final String host = getHost(entry.getUrl());
+                final HostLimiter limiter = hostLimiters.computeIfAbsent(host, h -> new HostLimiter(perHost));
+                final DownloadHandler handler = new DownloadHandler(session, entry, limiter);
+                limiter.submit(() -> downloadLimiter.submit(handler::start));
+            } catch (MalformedURLException e) {
+                session.addError(entry.getUrl(), e);
+                session.release();
+                session.taskFinished();
+            }
+        }
+    }
+
+    private void finish(final CrawlSession session) {
+        session.release();
+        dispatch(session);
+        session.taskFinished();
+    }
+
+    private class ExtractionRunnable implements Runnable {
+        private final CrawlSession session;
+        private final FrontierEntry entry;
+        private final Document document;
+
+        ExtractionRunnable(
+                final CrawlSession session,
+                final FrontierEntry entry,
+                final Document document) {
+            this.session = session;
+            this.entry = entry;
+            this.document = document;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (String link : document.extractLinks()) {
+                    session.enqueue(link, entry.getDepth() + 1);
+                }
+            } catch (IOException e) {
+                session.addError(entry.getUrl(), e);
+            } catch (RuntimeException | Error e) {
+                session.fail(e);
+            } finally {
+                finish(session);
+            }
+        }
+    }
+
+    private class DownloadHandler implements BiConsumer<Document, Throwable> {
+        private final CrawlSession session;
+        private final FrontierEntry entry;
+        private final HostLimiter limiter;
+
+        DownloadHandler(
+                final CrawlSession session,
+                final FrontierEntry entry,
+                final HostLimiter limiter) {
+            this.session = session;
+            this.entry = entry;
+            this.limiter = limiter;
+        }
+
+        void start() {
+            final CompletableFuture<Document> future;
+            try {
+                future = downloader.download(entry.getUrl());
+            } catch (RuntimeException | Error e) {
+                accept(null, e);
+                return;
+            }
+
+            if (future.isDone()) {
+                future.whenCompleteAsync(this, extractThreadPool);
+            } else {
+                future.whenComplete(this);
+            }
+        }
+
+        @Override
+        public void accept(final Document document, final Throwable throwable) {
+            downloadLimiter.release();
+            limiter.release();
+
+            boolean extracting = false;
+            try {
+                if (throwable == null) {
+                    session.addPage(entry.getUrl());
+                    if (entry.getDepth() < session.getMaxDepth()) {
+                        extractThreadPool.execute(new ExtractionRunnable(session, entry, document));
+                        extracting = true;
+                    }
+                } else {
+                    final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause()
+                            : throwable;
+                    if (cause instanceof IOException) {
+                        session.addError(entry.getUrl(), (IOException) cause);
+                    } else {
+                        session.fail(cause);
+                    }
+                }
+            } catch (RuntimeException e) {
+                session.fail(e);
+            } finally {
+                if (!extracting) {
+                    finish(session);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+public class BlockingDownloaderAdapter implements AsyncDownloader, AutoCloseable {
+    private final Downloader downloader;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    public BlockingDownloaderAdapter(final Downloader downloader) {
+        this.downloader = downloader;
+        this.ownedExecutor = createExecutor();
+        this.executor = ownedExecutor;
+    }
+
+    public BlockingDownloaderAdapter(final Downloader downloader, final Executor executor) {
+        this.downloader = downloader;
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ignored) {
+            final ThreadFactory threadFactory = runnable -> {
+                final Thread thread = new Thread(runnable, "DownloadThread");
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Document> download(final String url) {
+        final CompletableFuture<Document> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(downloader.download(url));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+}
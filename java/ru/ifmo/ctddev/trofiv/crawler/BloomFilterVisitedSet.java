@@ -0,0 +1,98 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class BloomFilterVisitedSet implements VisitedSet {
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final VisitedSet backing;
+
+    public BloomFilterVisitedSet(final long expectedSize, final double falsePositiveRate) {
+        this(expectedSize, falsePositiveRate, null);
+    }
+
+    public BloomFilterVisitedSet(
+            final long expectedSize,
+            final double falsePositiveRate,
+            final VisitedSet backing) {
+        if (expectedSize <= 0) {
+            throw new IllegalArgumentException("Expected size must be positive: " + expectedSize);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+
+        final double ln2 = Math.log(2);
+        final long words = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (ln2 * ln2) / Long.SIZE);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter is too large: " + words + " words");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedSize * ln2));
+        this.backing = backing;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean add(final String url) {
+        final long fingerprint = FingerprintVisitedSet.fingerprint(url);
+        synchronized (locks[(int) (fingerprint & (LOCK_STRIPES - 1))]) {
+            if (!set(fingerprint)) {
+                return backing != null && backing.add(url);
+            }
+            if (backing != null) {
+                backing.insert(url);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(final String url) {
+        final long fingerprint = FingerprintVisitedSet.fingerprint(url);
+        if (!mightContain(fingerprint)) {
+            return false;
+        }
+        return backing == null || backing.contains(url);
+    }
+
+    private boolean set(final long fingerprint) {
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = bitIndex(fingerprint, i);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+        return changed;
+    }
+
+    private boolean mightContain(final long fingerprint) {
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = bitIndex(fingerprint, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bitIndex(final long fingerprint, final int i) {
+        final long hash = (fingerprint >>> 32) + i * (fingerprint & 0xffffffffL | 1);
+        return (hash & Long.MAX_VALUE) % bitCount;
+    }
+}
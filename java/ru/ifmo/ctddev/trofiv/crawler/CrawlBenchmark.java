@@ -0,0 +1,229 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.ReplayDownloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+public class CrawlBenchmark {
+    private static final String SYNTHETIC = "synthetic:";
+    private static final long HEAP_SAMPLE_PERIOD_MS = 10;
+
+    private final String source;
+    private final int depth;
+    private final int downloadDelay;
+    private final int extractDelay;
+
+    public CrawlBenchmark(final String source, final int depth, final int downloadDelay, final int extractDelay) {
+        this.source = source;
+        this.depth = depth;
+        this.downloadDelay = downloadDelay;
+        this.extractDelay = extractDelay;
+    }
+
+    public static void main(final String[] args) {
+        if (args.length < 5 || args.length > 8) {
+            printHelp();
+        } else {
+            processCommand(args);
+        }
+    }
+
+    private static void printHelp() {
+        System.out.println("Usage: CrawlBenchmark source depth downloaders extractors perHost "
+                + "[downloadDelay [extractDelay [repeats]]]");
+        System.out.println("    source       recorded site URL (e.g. http://www.ifmo.ru) "
+                + "or synthetic:pages[:hosts[:links]]");
+        System.out.println("    downloaders, extractors and perHost are comma-separated lists; "
+                + "every combination is measured");
+    }
+
+    private static void processCommand(final String[] args) {
+        final int depth = Integer.parseInt(args[1]);
+        final int[] downloaders = parseList(args[2]);
+        final int[] extractors = parseList(args[3]);
+        final int[] perHosts = parseList(args[4]);
+        final int downloadDelay = args.length > 5
+                ? Integer.parseInt(args[5])
+                : 10;
+        final int extractDelay = args.length > 6
+                ? Integer.parseInt(args[6])
+                : 10;
+        final int repeats = args.length > 7
+                ? Integer.parseInt(args[7])
+                : 1;
+
+        final CrawlBenchmark benchmark = new CrawlBenchmark(args[0], depth, downloadDelay, extractDelay);
+        System.out.println(Measurement.HEADER);
+        try {
+            for (int downloaderCount : downloaders) {
+                for (int extractorCount : extractors) {
+                    for (int perHost : perHosts) {
+                        for (int i = 0; i < repeats; i++) {
+                            System.out.println(benchmark.run(downloaderCount, extractorCount, perHost));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Can't load recording: " + e.getMessage());
+        }
+    }
+
+    private static int[] parseList(final String list) {
+        final String[] parts = list.split(",");
+        final int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    public Measurement run(final int downloaders, final int extractors, final int perHost) throws IOException {
+        final String root;
+        final Downloader replay;
+        if (source.startsWith(SYNTHETIC)) {
+            final String[] parts = source.substring(SYNTHETIC.length()).split(":");
+            final SyntheticDownloader synthetic = new SyntheticDownloader(
+                    Long.parseLong(parts[0]),
+                    parts.length > 1 ? Integer.parseInt(parts[1]) : 100,
+                    parts.length > 2 ? Integer.parseInt(parts[2]) : 10,
+                    downloadDelay,
+                    extractDelay);
+            root = synthetic.getRoot();
+            replay = synthetic;
+        } else {
+            root = source;
+            replay = new ReplayDownloader(source, depth, downloadDelay, extractDelay);
+        }
+        final MeasuringDownloader downloader = new MeasuringDownloader(replay);
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        final LongAccumulator peakHeap = new LongAccumulator(Long::max, memory.getHeapMemoryUsage().getUsed());
+        final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "HeapSampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(
+                () -> peakHeap.accumulate(memory.getHeapMemoryUsage().getUsed()),
+                0,
+                HEAP_SAMPLE_PERIOD_MS,
+                TimeUnit.MILLISECONDS);
+
+        final long start = System.nanoTime();
+        final Result result;
+        try (WebCrawler crawler = new WebCrawler(downloader, downloaders, extractors, perHost)) {
+            result = crawler.download(root, depth);
+        }
+        final long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+        peakHeap.accumulate(memory.getHeapMemoryUsage().getUsed());
+
+        final LatencyRecorder latency = downloader.getDownloadLatency();
+        return new Measurement(
+                downloaders,
+                extractors,
+                perHost,
+                result.getDownloaded().size(),
+                result.getErrors().size(),
+                elapsed,
+                latency.percentileMicros(0.5),
+                latency.percentileMicros(0.99),
+                latency.maxMicros(),
+                peakHeap.get(),
+                threads.getPeakThreadCount(),
+                (double) downloader.getDownloadNanos() / elapsed,
+                (double) downloader.getExtractNanos() / elapsed);
+    }
+
+    public static class Measurement {
+        static final String HEADER = String.format(
+                "%11s %10s %7s %8s %6s %8s %9s %9s %9s %9s %8s %7s %8s %8s",
+                "downloaders", "extractors", "perHost", "pages", "errors", "seconds", "pages/s",
+                "p50 ms", "p99 ms", "max ms", "heap MB", "threads", "dl busy", "ex busy");
+
+        private final int downloaders;
+        private final int extractors;
+        private final int perHost;
+        private final int pages;
+        private final int errors;
+        private final long elapsedNanos;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+        private final long peakHeapBytes;
+        private final int peakThreads;
+        private final double busyDownloaders;
+        private final double busyExtractors;
+
+        Measurement(
+                final int downloaders,
+                final int extractors,
+                final int perHost,
+                final int pages,
+                final int errors,
+                final long elapsedNanos,
+                final long p50Micros,
+                final long p99Micros,
+                final long maxMicros,
+                final long peakHeapBytes,
+                final int peakThreads,
+                final double busyDownloaders,
+                final double busyExtractors) {
+            this.downloaders = downloaders;
+            this.extractors = extractors;
+            this.perHost = perHost;
+            this.pages = pages;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+            this.peakHeapBytes = peakHeapBytes;
+            this.peakThreads = peakThreads;
+            this.busyDownloaders = busyDownloaders;
+            this.busyExtractors = busyExtractors;
+        }
+
+        public double getPagesPerSecond() {
+            return pages / (elapsedNanos / 1e9);
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        public double getBusyDownloaders() {
+            return busyDownloaders;
+        }
+
+        public double getBusyExtractors() {
+            return busyExtractors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%11d %10d %7d %8d %6d %8.2f %9.1f %9.2f %9.2f %9.2f %8d %7d %8.1f %8.1f",
+                    downloaders, extractors, perHost, pages, errors, elapsedNanos / 1e9, getPagesPerSecond(),
+                    p50Micros / 1e3, p99Micros / 1e3, maxMicros / 1e3, peakHeapBytes >> 20, peakThreads,
+                    busyDownloaders, busyExtractors);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+public enum CrawlMode {
+    ASYNCHRONOUS,
+    LEVEL_SYNCHRONOUS
+}
@@ -0,0 +1,125 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+class CrawlSession implements Closeable {
+    private final VisitedSet downloaded;
+    private final int maxDepth;
+    private final int frontierWindow;
+    private final int admissionLimit;
+    private final InFlightCounter inFlight = new InFlightCounter();
+    private final Queue<String> pages = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, IOException> errors = new ConcurrentHashMap<>(64, 0.75f);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile SpillingFrontier frontier;
+    private volatile SpillingFrontier next;
+    private int admitted;
+
+    CrawlSession(
+            final VisitedSet downloaded,
+            final int maxDepth,
+            final boolean levelSynchronous,
+            final int frontierWindow,
+            final int admissionLimit) {
+        this.downloaded = downloaded;
+        this.maxDepth = maxDepth;
+        this.frontierWindow = frontierWindow;
+        this.admissionLimit = admissionLimit;
+        this.next = new SpillingFrontier(frontierWindow);
+        this.frontier = levelSynchronous
+                ? new SpillingFrontier(frontierWindow)
+                : next;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    void enqueue(final String url, final int depth) {
+        if (downloaded.add(url)) {
+            next.add(url, depth);
+        }
+    }
+
+    boolean advanceLevel() throws IOException {
+        if (next.isEmpty()) {
+            return false;
+        }
+
+        frontier.close();
+        frontier = next;
+        next = new SpillingFrontier(frontierWindow);
+        return true;
+    }
+
+    synchronized FrontierEntry admit() {
+        if (admitted >= admissionLimit) {
+            return null;
+        }
+
+        final FrontierEntry entry = frontier.poll();
+        if (entry != null) {
+            admitted++;
+        }
+        return entry;
+    }
+
+    synchronized void release() {
+        admitted--;
+    }
+
+    void taskStarted() {
+        inFlight.increment();
+    }
+
+    void taskFinished() {
+        inFlight.decrement();
+    }
+
+    void addPage(final String url) {
+        pages.add(url);
+    }
+
+    void addError(final String url, final IOException e) {
+        errors.put(url, e);
+    }
+
+    void fail(final Throwable e) {
+        failure.compareAndSet(null, e);
+    }
+
+    void awaitIdle() throws InterruptedException {
+        inFlight.awaitZero();
+
+        final Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Result toResult() {
+        final List<String> result = new ArrayList<>(pages.size());
+        for (String page : pages) {
+            if (!errors.containsKey(page)) {
+                result.add(page);
+            }
+        }
+        return new Result(result, errors);
+    }
+
+    @Override
+    public void close() throws IOException {
+        frontier.close();
+        next.close();
+    }
+}
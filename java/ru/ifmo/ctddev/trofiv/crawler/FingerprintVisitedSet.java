@@ -0,0 +1,144 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+public class FingerprintVisitedSet implements VisitedSet {
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final double MAX_LOAD = 0.85;
+    private static final double GROWTH_FACTOR = 1.25;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public FingerprintVisitedSet(final long expectedSize, final boolean offHeap) {
+        final long perSegment = (long) Math.ceil(expectedSize / MAX_LOAD / SEGMENTS);
+        final int capacity = capacityFor(perSegment);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity, offHeap);
+        }
+    }
+
+    @Override
+    public boolean add(final String url) {
+        final long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).add(fingerprint);
+    }
+
+    @Override
+    public boolean contains(final String url) {
+        final long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).contains(fingerprint);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(final long fingerprint) {
+        return segments[(int) (fingerprint >>> SEGMENT_SHIFT)];
+    }
+
+    static long fingerprint(final String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int capacityFor(final long size) {
+        if (size > Integer.MAX_VALUE / Long.BYTES) {
+            throw new IllegalArgumentException("Expected size is too large: " + size);
+        }
+        return Math.max(MIN_SEGMENT_CAPACITY, (int) size);
+    }
+
+    private static int slotFor(final long fingerprint, final int capacity) {
+        return (int) (((fingerprint & 0xffffffffL) * capacity) >>> 32);
+    }
+
+    private static class Segment {
+        private final boolean offHeap;
+        private LongBuffer slots;
+        private int size;
+
+        Segment(final int capacity, final boolean offHeap) {
+            this.offHeap = offHeap;
+            this.slots = allocate(capacity);
+        }
+
+        synchronized boolean add(final long fingerprint) {
+            final int capacity = slots.capacity();
+            int index = slotFor(fingerprint, capacity);
+            while (true) {
+                final long slot = slots.get(index);
+                if (slot == 0) {
+                    break;
+                }
+                if (slot == fingerprint) {
+                    return false;
+                }
+                index = index + 1 == capacity ? 0 : index + 1;
+            }
+
+            slots.put(index, fingerprint);
+            if (++size > slots.capacity() * MAX_LOAD) {
+                grow();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(final long fingerprint) {
+            final int capacity = slots.capacity();
+            int index = slotFor(fingerprint, capacity);
+            while (true) {
+                final long slot = slots.get(index);
+                if (slot == 0) {
+                    return false;
+                }
+                if (slot == fingerprint) {
+                    return true;
+                }
+                index = index + 1 == capacity ? 0 : index + 1;
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            final LongBuffer old = slots;
+            final int capacity = capacityFor((long) Math.ceil(old.capacity() * GROWTH_FACTOR));
+            slots = allocate(capacity);
+            for (int i = 0; i < old.capacity(); i++) {
+                final long fingerprint = old.get(i);
+                if (fingerprint != 0) {
+                    int index = slotFor(fingerprint, capacity);
+                    while (slots.get(index) != 0) {
+                        index = index + 1 == capacity ? 0 : index + 1;
+                    }
+                    slots.put(index, fingerprint);
+                }
+            }
+        }
+
+        private LongBuffer allocate(final int capacity) {
+            return offHeap
+                    ? ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer()
+                    : LongBuffer.allocate(capacity);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+class FrontierEntry {
+    private final String url;
+    private final int depth;
+
+    FrontierEntry(final String url, final int depth) {
+        this.url = url;
+        this.depth = depth;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+}
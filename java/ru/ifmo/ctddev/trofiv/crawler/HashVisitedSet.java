@@ -0,0 +1,18 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HashVisitedSet implements VisitedSet {
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(final String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(final String url) {
+        return urls.contains(url);
+    }
+}
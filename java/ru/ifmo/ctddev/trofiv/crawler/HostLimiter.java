@@ -0,0 +1,44 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HostLimiter {
+    private final int limit;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    HostLimiter(final int limit) {
+        this.limit = limit;
+    }
+
+    void submit(final Runnable task) {
+        pending.add(task);
+        drain();
+    }
+
+    void release() {
+        active.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            final int current = active.get();
+            if (current >= limit) {
+                return;
+            }
+            if (!active.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            final Runnable task = pending.poll();
+            if (task == null) {
+                active.decrementAndGet();
+            } else {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class InFlightCounter {
+    private final AtomicInteger count = new AtomicInteger();
+
+    void increment() {
+        count.incrementAndGet();
+    }
+
+    void decrement() {
+        if (count.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    synchronized void awaitZero() throws InterruptedException {
+        while (count.get() != 0) {
+            wait();
+        }
+    }
+}
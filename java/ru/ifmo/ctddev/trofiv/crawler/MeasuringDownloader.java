@@ -0,0 +1,52 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+class MeasuringDownloader implements Downloader {
+    private final Downloader downloader;
+    private final LatencyRecorder downloadLatency = new LatencyRecorder();
+    private final LongAdder downloadNanos = new LongAdder();
+    private final LongAdder extractNanos = new LongAdder();
+
+    MeasuringDownloader(final Downloader downloader) {
+        this.downloader = downloader;
+    }
+
+    @Override
+    public Document download(final String url) throws IOException {
+        final long start = System.nanoTime();
+        final Document document;
+        try {
+            document = downloader.download(url);
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            downloadLatency.record(elapsed);
+            downloadNanos.add(elapsed);
+        }
+
+        return () -> {
+            final long extractStart = System.nanoTime();
+            try {
+                return document.extractLinks();
+            } finally {
+                extractNanos.add(System.nanoTime() - extractStart);
+            }
+        };
+    }
+
+    LatencyRecorder getDownloadLatency() {
+        return downloadLatency;
+    }
+
+    long getDownloadNanos() {
+        return downloadNanos.sum();
+    }
+
+    long getExtractNanos() {
+        return extractNanos.sum();
+    }
+}
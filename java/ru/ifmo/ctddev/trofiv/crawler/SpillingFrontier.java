@@ -0,0 +1,126 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+class SpillingFrontier implements Closeable {
+    private final int window;
+    private final Deque<FrontierEntry> memory = new ArrayDeque<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Path directory;
+    private DataOutputStream writer;
+    private int segmentIndex;
+    private long size;
+
+    SpillingFrontier(final int window) {
+        this.window = window;
+    }
+
+    synchronized void add(final String url, final int depth) {
+        if (segments.isEmpty() && memory.size() < window) {
+            memory.add(new FrontierEntry(url, depth));
+        } else {
+            try {
+                spill(url, depth);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't spill frontier to disk", e);
+            }
+        }
+        size++;
+    }
+
+    synchronized FrontierEntry poll() {
+        if (memory.isEmpty() && !segments.isEmpty()) {
+            try {
+                load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't read spilled frontier", e);
+            }
+        }
+
+        final FrontierEntry entry = memory.poll();
+        if (entry != null) {
+            size--;
+        }
+        return entry;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        for (Segment segment : segments) {
+            Files.deleteIfExists(segment.path);
+        }
+        segments.clear();
+        memory.clear();
+        size = 0;
+        if (directory != null) {
+            Files.deleteIfExists(directory);
+            directory = null;
+        }
+    }
+
+    private void spill(final String url, final int depth) throws IOException {
+        Segment segment = segments.peekLast();
+        if (writer == null || segment.count == window) {
+            if (writer != null) {
+                writer.close();
+            }
+            if (directory == null) {
+                directory = Files.createTempDirectory("crawler-frontier");
+            }
+            segment = new Segment(directory.resolve("segment-" + segmentIndex++));
+            segments.add(segment);
+            writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segment.path)));
+        }
+
+        final byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        writer.writeInt(bytes.length);
+        writer.write(bytes);
+        writer.writeInt(depth);
+        segment.count++;
+    }
+
+    private void load() throws IOException {
+        final Segment segment = segments.poll();
+        if (segments.isEmpty() && writer != null) {
+            writer.close();
+            writer = null;
+        }
+
+        try (DataInputStream reader = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segment.path)))) {
+            for (int i = 0; i < segment.count; i++) {
+                final byte[] bytes = new byte[reader.readInt()];
+                reader.readFully(bytes);
+                final String url = new String(bytes, StandardCharsets.UTF_8);
+                memory.add(new FrontierEntry(url, reader.readInt()));
+            }
+        }
+        Files.delete(segment.path);
+    }
+
+    private static class Segment {
+        private final Path path;
+        private int count;
+
+        Segment(final Path path) {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+class SyntheticDownloader implements Downloader {
+    private static final String SUFFIX = ".synthetic/";
+
+    private final long pages;
+    private final int hosts;
+    private final int linksPerPage;
+    private final int downloadDelay;
+    private final int extractDelay;
+
+    SyntheticDownloader(
+            final long pages,
+            final int hosts,
+            final int linksPerPage,
+            final int downloadDelay,
+            final int extractDelay) {
+        this.pages = pages;
+        this.hosts = hosts;
+        this.linksPerPage = linksPerPage;
+        this.downloadDelay = downloadDelay;
+        this.extractDelay = extractDelay;
+    }
+
+    String getRoot() {
+        return url(0);
+    }
+
+    @Override
+    public Document download(final String url) throws IOException {
+        final long page = parse(url);
+        sleep(downloadDelay);
+        return () -> {
+            sleep(extractDelay);
+            final List<String> links = new ArrayList<>(linksPerPage);
+            for (int i = 0; i < linksPerPage; i++) {
+                links.add(url(Math.floorMod(mix(page * linksPerPage + i), pages)));
+            }
+            return links;
+        };
+    }
+
+    private String url(final long page) {
+        return "http://h" + page % hosts + SUFFIX + page;
+    }
+
+    private long parse(final String url) throws MalformedURLException {
+        final int index = url.indexOf(SUFFIX);
+        if (index < 0) {
+            throw new MalformedURLException("Unknown page " + url);
+        }
+        try {
+            final long page = Long.parseLong(url.substring(index + SUFFIX.length()));
+            if (page < 0 || page >= pages) {
+                throw new MalformedURLException("Unknown page " + url);
+            }
+            return page;
+        } catch (NumberFormatException e) {
+            throw new MalformedURLException("Unknown page " + url);
+        }
+    }
+
+    private static long mix(final long value) {
+        long hash = value * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 32;
+        hash *= 0xd6e8feb86659fd93L;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static void sleep(final int max) {
+        if (max > 0) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(max) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
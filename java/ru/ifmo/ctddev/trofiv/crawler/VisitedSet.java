@@ -0,0 +1,11 @@
+package ru.ifmo.ctddev.trofiv.crawler;
+
+public interface VisitedSet {
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    default void insert(final String url) {
+        add(url);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+class CompletionIterator<R> implements Iterator<R> {
+    private static final Object NULL = new Object();
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> completed = new LinkedBlockingQueue<>();
+    private final int size;
+    private TaskBatch batch;
+    private int received;
+
+    CompletionIterator(final int size) {
+        this.size = size;
+    }
+
+    void attach(final TaskBatch batch) {
+        this.batch = batch;
+        batch.whenDone(() -> completed.add(END));
+    }
+
+    void accept(final R value) {
+        completed.add(value == null ? NULL : value);
+    }
+
+    void cancel() {
+        batch.cancel();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return received < size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Object value;
+        try {
+            value = completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.cancel();
+            throw new CancellationException("Interrupted while waiting for results");
+        }
+
+        if (value == END) {
+            batch.checkFailure();
+            throw new IllegalStateException("Results are missing");
+        }
+        received++;
+        return value == NULL ? null : (R) value;
+    }
+}
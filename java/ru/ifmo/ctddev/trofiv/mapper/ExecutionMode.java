@@ -0,0 +1,6 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+public enum ExecutionMode {
+    PLATFORM_WORKERS,
+    VIRTUAL_THREADS
+}
@@ -1,80 +1,65 @@
 package ru.ifmo.ctddev.trofiv.mapper;
 
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static ru.ifmo.ctddev.trofiv.mapper.FutureStatus.*;
 
-@SuppressWarnings({"CallToNativeMethodWhileLocked", "SynchronizedMethod"})
-class FutureTask<R, T> {
-    private final T argument;
-    private final Function<T, R> task;
-    private volatile R result;
-    private volatile Thread runner;
-    private volatile FutureStatus status = STATUS_PENDING;
+class FutureTask {
+    private final Runnable task;
+    private final TaskBatch batch;
+    private final MapperMetrics metrics;
+    private final AtomicReference<FutureStatus> status = new AtomicReference<>(STATUS_PENDING);
+    private final boolean timed;
+    private final long submittedAt;
 
-    FutureTask(final Function<T, R> task, final T argument) {
+    FutureTask(final Runnable task, final TaskBatch batch, final MapperMetrics metrics) {
         this.task = task;
-        this.argument = argument;
+        this.batch = batch;
+        this.metrics = metrics;
+        this.timed = metrics.shouldSample();
+        this.submittedAt = timed ? System.nanoTime() : 0;
+        metrics.taskSubmitted();
     }
 
-    @SuppressWarnings({"NakedNotify", "SynchronizeOnThis"})
+    @SuppressWarnings("CatchGenericClass")
     void execute() {
-        try {
-            synchronized (this) {
-                if (status == STATUS_PENDING) {
-                    status = STATUS_RUNNING;
-                    runner = Thread.currentThread();
-                } else {
-                    return;
-                }
-            }
-            final R r = task.apply(argument);
-            synchronized (this) {
-                if (status == STATUS_RUNNING) {
-                    this.result = r;
-                    status = STATUS_READY;
-                    notifyAll();
-                }
-            }
-        } catch (Exception e) {
-            status = STATUS_ABORTED;
-            synchronized (this) {
-                notifyAll();
-            }
-            throw new IllegalStateException(e);
-        } finally {
-            runner = null;
+        if (!status.compareAndSet(STATUS_PENDING, STATUS_RUNNING)) {
+            return;
         }
-    }
-
-    synchronized void cancel() {
-        if (status != STATUS_READY) {
-            status = STATUS_ABORTED;
+        metrics.taskStarted();
+        final long startedAt = timed ? System.nanoTime() : 0;
+        if (timed) {
+            metrics.recordQueueWait(startedAt - submittedAt);
         }
-        if (runner != null) {
-            runner.interrupt();
-        }
-    }
-
-    synchronized R getResult() {
-        if (status == STATUS_READY) {
-            return result;
+        boolean success = false;
+        try {
+            task.run();
+            status.set(STATUS_READY);
+            success = true;
+        } catch (Throwable e) {
+            status.set(STATUS_ABORTED);
+            batch.fail(e);
+        } finally {
+            if (timed) {
+                metrics.recordExecution(System.nanoTime() - startedAt);
+            }
+            metrics.taskFinished(success);
+            batch.taskDone();
         }
-        throw new IllegalStateException("Result is not ready yet!");
     }
 
-    @SuppressWarnings({"WaitOrAwaitWithoutTimeout", "SynchronizeOnThis"})
-    synchronized void waitForDone() throws InterruptedException {
-        while (!isReady() && !isAborted()) {
-            wait();
+    void cancel() {
+        if (status.compareAndSet(STATUS_PENDING, STATUS_ABORTED)) {
+            metrics.taskCancelled();
+            batch.taskDone();
         }
     }
 
-    boolean isReady() {
-        return status == STATUS_READY;
+    void abort() {
+        batch.cancel();
     }
 
-    private boolean isAborted() {
-        return status == STATUS_ABORTED;
+    boolean isPending() {
+        return status.get() == STATUS_PENDING;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+public class LatencySnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    LatencySnapshot(final long[] counts, final long totalNanos, final long maxNanos) {
+        long count = 0;
+        for (long bucket : counts) {
+            count += bucket;
+        }
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getP50Nanos() {
+        return percentileNanos(0.5);
+    }
+
+    public long getP99Nanos() {
+        return percentileNanos(0.99);
+    }
+
+    public long percentileNanos(final double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : i >= Long.SIZE - 1 ? maxNanos : Math.min((1L << i) - 1, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0fns p50<=%dns p99<=%dns max=%dns",
+                count, getMeanNanos(), getP50Nanos(), getP99Nanos(), maxNanos);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+class MapperMetrics {
+    private static final int TIMING_SAMPLE_RATE = 4;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private final LongAdder activeTasks = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+
+    boolean shouldSample() {
+        return ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0;
+    }
+
+    void taskSubmitted() {
+        submitted.increment();
+    }
+
+    void taskStarted() {
+        started.increment();
+        activeTasks.increment();
+    }
+
+    void taskFinished(final boolean success) {
+        activeTasks.decrement();
+        (success ? completed : failed).increment();
+    }
+
+    void taskCancelled() {
+        cancelled.increment();
+    }
+
+    void taskStolen() {
+        steals.increment();
+    }
+
+    void recordQueueWait(final long nanos) {
+        queueWait.record(nanos);
+    }
+
+    void recordExecution(final long nanos) {
+        execution.record(nanos);
+    }
+
+    MapperStatistics snapshot(final int poolSize) {
+        final long submittedCount = submitted.sum();
+        final long startedCount = started.sum();
+        final long cancelledCount = cancelled.sum();
+        return new MapperStatistics(
+                submittedCount,
+                completed.sum(),
+                failed.sum(),
+                cancelledCount,
+                steals.sum(),
+                activeTasks.sum(),
+                Math.max(submittedCount - startedCount - cancelledCount, 0),
+                poolSize,
+                queueWait.snapshot(),
+                execution.snapshot());
+    }
+}
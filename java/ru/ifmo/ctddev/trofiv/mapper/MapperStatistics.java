@@ -0,0 +1,91 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+public class MapperStatistics {
+    private final long tasksSubmitted;
+    private final long tasksCompleted;
+    private final long tasksFailed;
+    private final long tasksCancelled;
+    private final long steals;
+    private final long activeTasks;
+    private final long queueDepth;
+    private final int poolSize;
+    private final LatencySnapshot queueWait;
+    private final LatencySnapshot execution;
+
+    MapperStatistics(
+            final long tasksSubmitted,
+            final long tasksCompleted,
+            final long tasksFailed,
+            final long tasksCancelled,
+            final long steals,
+            final long activeTasks,
+            final long queueDepth,
+            final int poolSize,
+            final LatencySnapshot queueWait,
+            final LatencySnapshot execution) {
+        this.tasksSubmitted = tasksSubmitted;
+        this.tasksCompleted = tasksCompleted;
+        this.tasksFailed = tasksFailed;
+        this.tasksCancelled = tasksCancelled;
+        this.steals = steals;
+        this.activeTasks = activeTasks;
+        this.queueDepth = queueDepth;
+        this.poolSize = poolSize;
+        this.queueWait = queueWait;
+        this.execution = execution;
+    }
+
+    public long getTasksSubmitted() {
+        return tasksSubmitted;
+    }
+
+    public long getTasksCompleted() {
+        return tasksCompleted;
+    }
+
+    public long getTasksFailed() {
+        return tasksFailed;
+    }
+
+    public long getTasksCancelled() {
+        return tasksCancelled;
+    }
+
+    public long getSteals() {
+        return steals;
+    }
+
+    public long getActiveTasks() {
+        return activeTasks;
+    }
+
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public LatencySnapshot getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencySnapshot getExecution() {
+        return execution;
+    }
+
+    @Override
+    public String toString() {
+        return "submitted=" + tasksSubmitted
+                + " completed=" + tasksCompleted
+                + " failed=" + tasksFailed
+                + " cancelled=" + tasksCancelled
+                + " steals=" + steals
+                + " active=" + activeTasks
+                + " queued=" + queueDepth
+                + " pool=" + poolSize
+                + "\nqueue wait: " + queueWait
+                + "\nexecution: " + execution;
+    }
+}
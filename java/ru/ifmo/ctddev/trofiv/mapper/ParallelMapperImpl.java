@@ -2,17 +2,46 @@ package ru.ifmo.ctddev.trofiv.mapper;
 
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class ParallelMapperImpl implements ParallelMapper {
-    private final TaskExecutor taskExecutor;
+public class ParallelMapperImpl implements ParallelMapper, ParallelMapperMXBean {
+    public static final int DEFAULT_PRIORITY = 1;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private final MapperMetrics metrics = new MapperMetrics();
+    private final TaskScheduler taskExecutor;
+    private volatile ObjectName objectName;
 
     public ParallelMapperImpl(final int threads) {
-        taskExecutor = new TaskExecutor(threads);
-        taskExecutor.start();
+        this(threads, ExecutionMode.PLATFORM_WORKERS);
+    }
+
+    public ParallelMapperImpl(
+            final int minThreads,
+            final int maxThreads,
+            final long keepAlive,
+            final TimeUnit unit) {
+        final TaskExecutor workers = new TaskExecutor(minThreads, maxThreads, keepAlive, unit, metrics);
+        workers.start();
+        taskExecutor = workers;
+    }
+
+    public ParallelMapperImpl(final int threads, final ExecutionMode mode) {
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            taskExecutor = new ThreadPerTaskExecutor(threads);
+        } else {
+            final TaskExecutor workers = new TaskExecutor(threads, metrics);
+            workers.start();
+            taskExecutor = workers;
+        }
     }
 
     @Override
@@ -20,26 +49,142 @@ public class ParallelMapperImpl implements ParallelMapper {
             final Function<? super T, ? extends R> function,
             final List<? extends T> args)
             throws InterruptedException {
-        final Collection<FutureTask<R, T>> futureTasks = new ArrayList<>();
+        return map(function, args, DEFAULT_PRIORITY);
+    }
 
-        for (T arg : args) {
-            futureTasks.add(taskExecutor.submit(function::apply, arg));
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> map(
+            final Function<? super T, ? extends R> function,
+            final List<? extends T> args,
+            final int priority)
+            throws InterruptedException {
+        final Object[] results = new Object[args.size()];
+        final TaskBatch batch = submit(function, args, priority, (result, index) -> results[index] = result);
+
+        final List<FutureTask> futureTasks = batch.getTasks();
+        try {
+            for (int i = futureTasks.size() - 1; i >= 0 && !batch.isCancelled(); i--) {
+                taskExecutor.executeInCaller(futureTasks.get(i));
+            }
+            batch.await();
+        } catch (InterruptedException e) {
+            batch.cancel();
+            throw e;
         }
 
-        final List<R> result = new ArrayList<>();
+        return Arrays.asList((R[]) results);
+    }
 
-        for (FutureTask<R, T> futureTask : futureTasks) {
-            futureTask.waitForDone();
-            if (futureTask.isReady()) {
-                result.add(futureTask.getResult());
-            }
+    @SuppressWarnings("unchecked")
+    public <T, R> CompletableFuture<List<R>> mapAsync(
+            final Function<? super T, ? extends R> function,
+            final List<? extends T> args) {
+        final Object[] results = new Object[args.size()];
+        final TaskBatch batch = submit(function, args, DEFAULT_PRIORITY, (result, index) -> results[index] = result);
+        return batch.toFuture(() -> Arrays.asList((R[]) results));
+    }
+
+    public <T, R> Stream<R> mapStream(
+            final Function<? super T, ? extends R> function,
+            final List<? extends T> args) {
+        final CompletionIterator<R> iterator = new CompletionIterator<>(args.size());
+        iterator.attach(submit(function, args, DEFAULT_PRIORITY, (result, index) -> iterator.accept(result)));
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, 0), false)
+                .onClose(iterator::cancel);
+    }
+
+    public <T, R> Iterator<R> map(
+            final Function<? super T, ? extends R> function,
+            final Iterator<? extends T> input,
+            final int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        return new WindowedIterator<>(this, function, input, window);
+    }
+
+    private <T, R> TaskBatch submit(
+            final Function<? super T, ? extends R> function,
+            final List<? extends T> args,
+            final int priority,
+            final ObjIntConsumer<? super R> sink) {
+        if (priority < 1) {
+            throw new IllegalArgumentException("Priority must be positive: " + priority);
+        }
+
+        final List<? extends T> values = args instanceof RandomAccess ? args : new ArrayList<>(args);
+        final int chunksCount = Math.min(values.size(), taskExecutor.getParallelism() * CHUNKS_PER_WORKER);
+        final int[] bounds = new int[chunksCount + 1];
+        for (int i = 0; i < chunksCount; i++) {
+            bounds[i + 1] = bounds[i] + values.size() / chunksCount + (i < values.size() % chunksCount ? 1 : 0);
         }
 
-        return result;
+        final TaskBatch batch = new TaskBatch(chunksCount, metrics);
+        for (int chunk = 0; chunk < chunksCount; chunk++) {
+            final int from = bounds[chunk];
+            final int to = bounds[chunk + 1];
+            batch.add(() -> {
+                for (int i = from; i < to && !batch.isCancelled(); i++) {
+                    sink.accept(function.apply(values.get(i)), i);
+                }
+            });
+        }
+
+        taskExecutor.submitAll(batch.getTasks(), priority);
+        return batch;
+    }
+
+    @Override
+    public MapperStatistics getStatistics() {
+        return metrics.snapshot(taskExecutor.getPoolSize());
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return getStatistics().getQueueDepth();
+    }
+
+    @Override
+    public long getActiveTasks() {
+        return getStatistics().getActiveTasks();
+    }
+
+    @Override
+    public long getTasksCompleted() {
+        return getStatistics().getTasksCompleted();
+    }
+
+    @Override
+    public long getTasksFailed() {
+        return getStatistics().getTasksFailed();
+    }
+
+    public void registerMBean(final String name) throws JMException {
+        final ObjectName target = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, target);
+        objectName = target;
+    }
+
+    private void unregisterMBean() {
+        final ObjectName target = objectName;
+        if (target != null) {
+            objectName = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(target);
+            } catch (JMException ignored) {
+            }
+        }
     }
 
     @Override
     public void close() throws InterruptedException {
+        unregisterMBean();
+        taskExecutor.close();
+    }
+
+    public void shutdownNow() throws InterruptedException {
+        unregisterMBean();
         taskExecutor.shutdown();
     }
 }
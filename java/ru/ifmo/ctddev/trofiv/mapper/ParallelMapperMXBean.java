@@ -0,0 +1,13 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+public interface ParallelMapperMXBean {
+    MapperStatistics getStatistics();
+
+    long getQueueDepth();
+
+    long getActiveTasks();
+
+    long getTasksCompleted();
+
+    long getTasksFailed();
+}
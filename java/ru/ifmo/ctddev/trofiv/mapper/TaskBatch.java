@@ -0,0 +1,107 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+class TaskBatch {
+    private final List<FutureTask> tasks;
+    private final MapperMetrics metrics;
+    private final AtomicInteger remaining;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+
+    TaskBatch(final int size, final MapperMetrics metrics) {
+        this.tasks = new ArrayList<>(size);
+        this.metrics = metrics;
+        this.remaining = new AtomicInteger(size);
+        if (size == 0) {
+            completion.complete(null);
+        }
+    }
+
+    void add(final Runnable task) {
+        tasks.add(new FutureTask(task, this, metrics));
+    }
+
+    List<FutureTask> getTasks() {
+        return tasks;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void taskDone() {
+        if (remaining.decrementAndGet() == 0) {
+            completion.complete(null);
+        }
+    }
+
+    void whenDone(final Runnable action) {
+        completion.thenRun(action);
+    }
+
+    void fail(final Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            cancel();
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        tasks.forEach(FutureTask::cancel);
+    }
+
+    void await() throws InterruptedException {
+        try {
+            completion.get();
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        checkFailure();
+    }
+
+    <R> CompletableFuture<R> toFuture(final Supplier<R> result) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        whenDone(() -> {
+            try {
+                checkFailure();
+                future.complete(result.get());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(failure.get() != null ? failure.get() : e);
+            }
+        });
+        future.whenComplete((value, cause) -> {
+            if (future.isCancelled()) {
+                cancel();
+            }
+        });
+        return future;
+    }
+
+    void checkFailure() {
+        final Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (cause != null) {
+            throw new IllegalStateException(cause);
+        }
+        if (cancelled) {
+            throw new CancellationException("Map call has been cancelled");
+        }
+    }
+}
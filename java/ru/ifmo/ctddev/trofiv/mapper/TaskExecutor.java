@@ -1,47 +1,317 @@
 package ru.ifmo.ctddev.trofiv.mapper;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 import java.util.Queue;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-class TaskExecutor {
-    private final Queue<FutureTask> tasks = new ArrayDeque<>(1024);
-    private final List<Thread> threads;
+class TaskExecutor implements TaskScheduler {
+    private final Object idleLock = new Object();
+    private final Queue<TaskGroup> activeGroups = new ConcurrentLinkedQueue<>();
+    private final List<WorkerRunnable> workers = new CopyOnWriteArrayList<>();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private final ThreadLocal<WorkerRunnable> currentWorker = new ThreadLocal<>();
+    private final Semaphore runPermits;
+    private final MapperMetrics metrics;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long keepAliveNanos;
+    private volatile int idleWorkers;
+    private volatile boolean closing;
+    private volatile boolean stopped;
 
-    TaskExecutor(final int threads) {
-        this.threads = new ArrayList<>(threads);
-        for (int i = 0; i < threads; i++) {
-            final Thread thread = new Thread(new WorkerRunnable(tasks), "WorkerThread" + i);
-            this.threads.add(thread);
+    TaskExecutor(final int threads, final MapperMetrics metrics) {
+        this(threads, threads, Long.MAX_VALUE, TimeUnit.NANOSECONDS, metrics);
+    }
+
+    TaskExecutor(
+            final int minWorkers,
+            final int maxWorkers,
+            final long keepAlive,
+            final TimeUnit unit,
+            final MapperMetrics metrics) {
+        if (minWorkers < 0 || maxWorkers < 1 || minWorkers > maxWorkers) {
+            throw new IllegalArgumentException("Invalid worker bounds: " + minWorkers + ".." + maxWorkers);
         }
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.runPermits = new Semaphore(maxWorkers, true);
+        this.metrics = metrics;
     }
 
     void start() {
-        threads.forEach(Thread::start);
+        for (int i = 0; i < minWorkers; i++) {
+            tryAddWorker();
+        }
+    }
+
+    private boolean tryAddWorker() {
+        int live;
+        do {
+            live = liveWorkers.get();
+            if (live >= maxWorkers) {
+                return false;
+            }
+        } while (!liveWorkers.compareAndSet(live, live + 1));
+
+        final WorkerRunnable worker = new WorkerRunnable(this);
+        final Thread thread = new Thread(worker, "WorkerThread" + threadIndex.getAndIncrement());
+        workers.add(worker);
+        threads.add(thread);
+        thread.start();
+        return true;
+    }
+
+    private boolean tryRetireWorker(final WorkerRunnable worker) {
+        int live;
+        do {
+            live = liveWorkers.get();
+            if (live <= minWorkers) {
+                return false;
+            }
+        } while (!liveWorkers.compareAndSet(live, live - 1));
+
+        worker.retire();
+        return true;
+    }
+
+    void detachWorker(final WorkerRunnable worker) {
+        currentWorker.remove();
+        workers.remove(worker);
+        threads.remove(Thread.currentThread());
+        if (!worker.isRetired()) {
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public int getParallelism() {
+        return maxWorkers;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return liveWorkers.get();
     }
 
-    @SuppressWarnings("NotifyWithoutCorrespondingWait")
-    <R, T> FutureTask<R, T> submit(final Function<T, R> task, final T argument) {
-        final FutureTask<R, T> futureTask = new FutureTask<>(task, argument);
-        synchronized (tasks) {
-            tasks.add(futureTask);
-            tasks.notifyAll();
+    @Override
+    public void submitAll(final Collection<? extends FutureTask> tasks, final int weight) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final WorkerRunnable worker = currentWorker.get();
+        if (closing && worker == null) {
+            throw new RejectedExecutionException("Executor is closed");
+        }
+        if (worker != null) {
+            for (FutureTask task : tasks) {
+                worker.getTasks().addFirst(task);
+            }
+        } else {
+            activeGroups.add(new TaskGroup(tasks, weight));
+        }
+        signalWorkers(tasks.size());
+        int missing = tasks.size() - idleWorkers;
+        while (missing > 0 && tryAddWorker()) {
+            missing--;
+        }
+    }
+
+    @SuppressWarnings({"NotifyWithoutCorrespondingWait", "NonAtomicOperationOnVolatileField"})
+    private void signalWorkers(final int tasksCount) {
+        if (idleWorkers == 0) {
+            return;
+        }
+        synchronized (idleLock) {
+            for (int i = Math.min(tasksCount, idleWorkers); i > 0; i--) {
+                idleLock.notify();
+            }
         }
-        return futureTask;
     }
 
-    void shutdown() throws InterruptedException {
-        synchronized (tasks) {
-            tasks.forEach(FutureTask::cancel);
-            tasks.clear();
+    @SuppressWarnings({"WaitOrAwaitWithoutTimeout", "NonAtomicOperationOnVolatileField"})
+    FutureTask awaitTask(final WorkerRunnable worker) throws InterruptedException {
+        while (true) {
+            runPermits.acquire();
+            final FutureTask task = findTask(worker);
+            if (task != null) {
+                return task;
+            }
+            runPermits.release();
+
+            synchronized (idleLock) {
+                idleWorkers++;
+                try {
+                    long remaining = keepAliveNanos;
+                    while (!hasTasks()) {
+                        if (closing) {
+                            return null;
+                        }
+                        if (liveWorkers.get() <= minWorkers) {
+                            idleLock.wait();
+                        } else if (remaining <= 0) {
+                            if (tryRetireWorker(worker)) {
+                                return null;
+                            }
+                            remaining = keepAliveNanos;
+                        } else {
+                            final long start = System.nanoTime();
+                            TimeUnit.NANOSECONDS.timedWait(idleLock, remaining);
+                            remaining -= System.nanoTime() - start;
+                        }
+                    }
+                } finally {
+                    idleWorkers--;
+                }
+            }
+        }
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void releasePermit() {
+        runPermits.release();
+    }
+
+    @Override
+    public void executeInCaller(final FutureTask task) throws InterruptedException {
+        if (!task.isPending()) {
+            return;
+        }
+        if (currentWorker.get() != null) {
+            task.execute();
+        } else if (!hasCompetingGroups() && runPermits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            try {
+                task.execute();
+            } finally {
+                runPermits.release();
+            }
+        }
+    }
+
+    void attachWorker(final WorkerRunnable worker) {
+        currentWorker.set(worker);
+    }
+
+    private FutureTask findTask(final WorkerRunnable worker) {
+        final FutureTask own = worker.getTasks().pollFirst();
+        if (own != null) {
+            return own;
+        }
+        final FutureTask shared = pollGroups(worker);
+        return shared != null ? shared : steal(worker);
+    }
+
+    private boolean hasCompetingGroups() {
+        int groups = 0;
+        for (TaskGroup ignored : activeGroups) {
+            if (++groups > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasTasks() {
+        if (!activeGroups.isEmpty()) {
+            return true;
+        }
+        for (WorkerRunnable worker : workers) {
+            if (!worker.getTasks().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private FutureTask pollGroups(final WorkerRunnable worker) {
+        TaskGroup group;
+        while ((group = activeGroups.poll()) != null) {
+            final FutureTask first = group.poll();
+            if (first == null) {
+                continue;
+            }
+
+            int taken = 1;
+            FutureTask task;
+            while (taken < group.getWeight() && (task = group.poll()) != null) {
+                worker.getTasks().addLast(task);
+                taken++;
+            }
+
+            if (!group.isEmpty()) {
+                activeGroups.add(group);
+            }
+            signalWorkers(taken - 1 + (group.isEmpty() ? 0 : 1));
+            return first;
+        }
+        return null;
+    }
+
+    private FutureTask steal(final WorkerRunnable thief) {
+        final WorkerRunnable[] victims = workers.toArray(new WorkerRunnable[0]);
+        if (victims.length == 0) {
+            return null;
+        }
+        final int start = ThreadLocalRandom.current().nextInt(victims.length);
+        for (int i = 0; i < victims.length; i++) {
+            final WorkerRunnable victim = victims[(start + i) % victims.length];
+            if (victim != thief) {
+                final FutureTask task = victim.getTasks().pollLast();
+                if (task != null) {
+                    metrics.taskStolen();
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closing = true;
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
+        awaitThreads();
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        closing = true;
+        stopped = true;
+        TaskGroup group;
+        while ((group = activeGroups.poll()) != null) {
+            FutureTask task;
+            while ((task = group.poll()) != null) {
+                task.abort();
+            }
+        }
+
+        for (WorkerRunnable worker : workers) {
+            final Deque<FutureTask> tasks = worker.getTasks();
+            FutureTask task;
+            while ((task = tasks.pollFirst()) != null) {
+                task.abort();
+            }
         }
 
         threads.forEach(Thread::interrupt);
+        awaitThreads();
+    }
 
+    private void awaitThreads() throws InterruptedException {
         for (Thread thread : threads) {
             thread.join();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class TaskGroup {
+    private final Queue<FutureTask> tasks;
+    private final int weight;
+
+    TaskGroup(final Collection<? extends FutureTask> tasks, final int weight) {
+        this.tasks = new ConcurrentLinkedQueue<>(tasks);
+        this.weight = weight;
+    }
+
+    int getWeight() {
+        return weight;
+    }
+
+    FutureTask poll() {
+        FutureTask task;
+        do {
+            task = tasks.poll();
+        } while (task != null && !task.isPending());
+        return task;
+    }
+
+    boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+}
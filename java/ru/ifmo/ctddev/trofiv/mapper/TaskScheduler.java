@@ -0,0 +1,17 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.Collection;
+
+interface TaskScheduler {
+    int getParallelism();
+
+    int getPoolSize();
+
+    void submitAll(Collection<? extends FutureTask> tasks, int weight);
+
+    void executeInCaller(FutureTask task) throws InterruptedException;
+
+    void close() throws InterruptedException;
+
+    void shutdown() throws InterruptedException;
+}
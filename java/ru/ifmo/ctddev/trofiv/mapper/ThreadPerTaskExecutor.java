@@ -0,0 +1,120 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+class ThreadPerTaskExecutor implements TaskScheduler {
+    private final int concurrency;
+    private final Semaphore runPermits;
+    private final ThreadFactory threadFactory;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Boolean> taskThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private volatile boolean closing;
+
+    ThreadPerTaskExecutor(final int concurrency) {
+        this.concurrency = concurrency;
+        this.runPermits = new Semaphore(concurrency, true);
+        this.threadFactory = createThreadFactory();
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ignored) {
+            return runnable -> {
+                final Thread thread = new Thread(runnable, "TaskThread");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    @Override
+    public int getParallelism() {
+        return concurrency;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return threads.size();
+    }
+
+    @Override
+    public void submitAll(final Collection<? extends FutureTask> tasks, final int weight) {
+        if (closing && !taskThread.get()) {
+            throw new RejectedExecutionException("Executor is closed");
+        }
+        for (FutureTask task : tasks) {
+            final Thread thread = threadFactory.newThread(() -> {
+                try {
+                    runPermits.acquire();
+                    try {
+                        execute(task);
+                    } finally {
+                        runPermits.release();
+                    }
+                } catch (InterruptedException ignored) {
+                    task.abort();
+                } finally {
+                    threads.remove(Thread.currentThread());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void executeInCaller(final FutureTask task) throws InterruptedException {
+        if (!task.isPending()) {
+            return;
+        }
+        if (taskThread.get()) {
+            task.execute();
+        } else if (runPermits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            try {
+                execute(task);
+            } finally {
+                runPermits.release();
+            }
+        }
+    }
+
+    private void execute(final FutureTask task) {
+        taskThread.set(Boolean.TRUE);
+        try {
+            task.execute();
+        } finally {
+            taskThread.set(Boolean.FALSE);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closing = true;
+        awaitThreads();
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        closing = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        awaitThreads();
+    }
+
+    private void awaitThreads() throws InterruptedException {
+        while (!threads.isEmpty()) {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+}
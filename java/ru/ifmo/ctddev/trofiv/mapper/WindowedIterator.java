@@ -0,0 +1,83 @@
+package ru.ifmo.ctddev.trofiv.mapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+class WindowedIterator<T, R> implements Iterator<R> {
+    private final ParallelMapperImpl mapper;
+    private final Function<? super T, ? extends R> function;
+    private final Iterator<? extends T> input;
+    private final int window;
+    private CompletableFuture<List<R>> pending;
+    private List<R> current = Collections.emptyList();
+    private int position;
+
+    WindowedIterator(
+            final ParallelMapperImpl mapper,
+            final Function<? super T, ? extends R> function,
+            final Iterator<? extends T> input,
+            final int window) {
+        this.mapper = mapper;
+        this.function = function;
+        this.input = input;
+        this.window = window;
+        this.pending = submitWindow();
+    }
+
+    private CompletableFuture<List<R>> submitWindow() {
+        final List<T> block = new ArrayList<>(window);
+        while (block.size() < window && input.hasNext()) {
+            block.add(input.next());
+        }
+        return block.isEmpty() ? null : mapper.mapAsync(function, block);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < current.size()) {
+            return true;
+        }
+        if (pending == null) {
+            return false;
+        }
+
+        current = await(pending);
+        position = 0;
+        pending = submitWindow();
+        return position < current.size();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.get(position++);
+    }
+
+    private static <R> List<R> await(final CompletableFuture<List<R>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new CancellationException("Interrupted while waiting for results");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -1,34 +1,52 @@
 package ru.ifmo.ctddev.trofiv.mapper;
 
-import java.util.Queue;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
-@SuppressWarnings({"WaitOrAwaitWithoutTimeout", "WaitWithoutCorrespondingNotify", "NakedNotify"})
 class WorkerRunnable implements Runnable {
-    private final Queue<FutureTask> tasks;
+    private final Deque<FutureTask> tasks = new ConcurrentLinkedDeque<>();
+    private final TaskExecutor executor;
+    private boolean retired;
 
-    WorkerRunnable(final Queue<FutureTask> tasks) {
-        this.tasks = tasks;
+    WorkerRunnable(final TaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    Deque<FutureTask> getTasks() {
+        return tasks;
+    }
+
+    void retire() {
+        retired = true;
+    }
+
+    boolean isRetired() {
+        return retired;
     }
 
     @Override
-    @SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
     public void run() {
-        while (!Thread.currentThread().isInterrupted()) {
-            final FutureTask futureTask;
-            synchronized (tasks) {
-                while (tasks.isEmpty()) {
-                    try {
-                        tasks.wait();
-                    } catch (InterruptedException ignored) {
-                        return;
-                    }
+        executor.attachWorker(this);
+        try {
+            while (!executor.isStopped()) {
+                final FutureTask futureTask;
+                try {
+                    futureTask = executor.awaitTask(this);
+                } catch (InterruptedException ignored) {
+                    continue;
+                }
+                if (futureTask == null) {
+                    return;
+                }
+                try {
+                    futureTask.execute();
+                } finally {
+                    Thread.interrupted();
+                    executor.releasePermit();
                 }
-                futureTask = tasks.remove();
-            }
-            futureTask.execute();
-            synchronized (futureTask) {
-                futureTask.notifyAll();
             }
+        } finally {
+            executor.detachWorker(this);
         }
     }
 }